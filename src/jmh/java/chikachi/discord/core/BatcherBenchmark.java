@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of Batcher.queue, with any number of threads queueing into the same Batcher.
+ *
+ * With a small maxItems most items trigger a flush right away, with a large one they wait for the delay. There is no
+ * weight limit, so it doesn't flush before maxItems. Latency and batch sizes are reported by {@link BatcherStress}.
+ *
+ * Run with: gradlew jmh -PjmhArgs="BatcherBenchmark -t 32"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatcherBenchmark {
+    private static final int ITEMS = 100;
+
+    @Param({"20", "100000"})
+    public int maxItems;
+
+    private ScheduledExecutorService executor;
+    private Batcher<String> batcher;
+    private final AtomicLong delivered = new AtomicLong();
+
+    @Setup
+    public void setup() {
+        this.executor = Executors.newSingleThreadScheduledExecutor();
+        this.batcher = new Batcher<>(
+            batch -> this.delivered.addAndGet(batch.size()),
+            5,
+            50,
+            this.maxItems,
+            Long.MAX_VALUE,
+            message -> message.length() + 1,
+            this.executor,
+            System::nanoTime
+        );
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        this.executor.shutdown();
+        this.executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void queue() {
+        for (int i = 0; i < ITEMS; i++) {
+            this.batcher.queue("a chat message of a typical length");
+        }
+    }
+}
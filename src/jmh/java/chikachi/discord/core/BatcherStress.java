@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reports how long items wait in a Batcher and how big batches get, with 1 to 32 producers sending at different
+ * rates. Uses {@link BatcherSimulation}, so the numbers are the same on every run and every machine. BatcherTest
+ * checks that nothing is lost and nothing waits too long.
+ *
+ * Run with: gradlew batcherStress
+ */
+public class BatcherStress {
+    private static final int[] PRODUCERS = {1, 2, 4, 8, 16, 32};
+    /**
+     * Messages per second per producer
+     */
+    private static final double[] RATES = {0.2, 1, 10};
+    private static final int SECONDS = 120;
+
+    public static void main(String[] args) {
+        System.out.println("Virtual time, delay " + BatcherSimulation.DELAY_MS + " ms, max latency " + BatcherSimulation.MAX_LATENCY_MS + " ms, max items " + BatcherSimulation.MAX_ITEMS + ", max weight " + MessageSplitter.MAX_LENGTH);
+        System.out.printf("%9s %7s %8s %8s %6s %8s %8s %8s %8s  %s%n", "producers", "rate/s", "items", "batches", "avg", "p50 ms", "p90 ms", "p99 ms", "max ms", "batch sizes 1 / 2-4 / 5-9 / 10-19 / 20+");
+        for (int producers : PRODUCERS) {
+            for (double rate : RATES) {
+                report(new BatcherSimulation(producers, rate, SECONDS));
+            }
+        }
+    }
+
+    private static void report(BatcherSimulation simulation) {
+        List<Integer> batchSizes = simulation.batchSizes;
+        int[] sizeBuckets = new int[5];
+        for (int size : batchSizes) {
+            sizeBuckets[bucket(size)]++;
+        }
+
+        long[] sorted = simulation.sortedLatencies();
+        long max = sorted.length > 0 ? sorted[sorted.length - 1] : 0;
+
+        System.out.printf(
+            "%9d %7.1f %8d %8d %6.2f %8.1f %8.1f %8.1f %8.1f  %s%n",
+            simulation.producers,
+            simulation.rate,
+            simulation.items,
+            batchSizes.size(),
+            batchSizes.size() > 0 ? (double) simulation.items / batchSizes.size() : 0,
+            percentile(sorted, 0.50),
+            percentile(sorted, 0.90),
+            percentile(sorted, 0.99),
+            max / 1e6,
+            Arrays.toString(sizeBuckets)
+        );
+    }
+
+    private static int bucket(int size) {
+        if (size <= 1) {
+            return 0;
+        } else if (size <= 4) {
+            return 1;
+        } else if (size <= 9) {
+            return 2;
+        } else if (size <= 19) {
+            return 3;
+        }
+        return 4;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import chikachi.discord.core.config.Configuration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Messages the benchmarks format, read from the benchmark resources.
+ *
+ * "chat" is what players usually send, "format" is format_discord.txt, every Discord and Minecraft formatting.
+ */
+final class Corpus {
+    private Corpus() {
+    }
+
+    static String[] load(String name) {
+        String resource = name.equals("format") ? "/format_discord.txt" : "/chat_corpus.txt";
+
+        try (InputStream stream = Corpus.class.getResourceAsStream(resource)) {
+            if (stream == null) {
+                throw new IllegalStateException("Missing benchmark resource " + resource);
+            }
+
+            List<String> lines = new ArrayList<>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() > 0) {
+                    lines.add(line);
+                }
+            }
+            return lines.toArray(new String[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Message formatting reads the emote settings, load the default config from a temporary directory.
+     */
+    static void loadDefaultConfig() {
+        if (Configuration.getConfig() != null) {
+            return;
+        }
+
+        try {
+            Configuration.onPreInit(Files.createTempDirectory("benchmark").toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translating formatting between Minecraft codes and Discord markdown, one corpus line per op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormattingTranscoderBenchmark {
+    @Param({"chat", "format"})
+    public String corpus;
+
+    private String[] lines;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        this.lines = Corpus.load(this.corpus);
+    }
+
+    @Benchmark
+    public String minecraftToDiscord() {
+        return Patterns.minecraftToDiscord(this.lines[this.index++ % this.lines.length]);
+    }
+
+    @Benchmark
+    public String discordToMinecraft() {
+        return Patterns.discordToMinecraft(this.lines[this.index++ % this.lines.length]);
+    }
+
+    @Benchmark
+    public String unifyMinecraftFormatting() {
+        return Patterns.unifyMinecraftFormatting(this.lines[this.index++ % this.lines.length]);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import chikachi.discord.core.config.types.MessageConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting a relayed chat message for Discord and for Minecraft, the way the listeners do for every message.
+ * A new Message per op, since a Message keeps its formatted text.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+    @Param({"chat", "format"})
+    public String corpus;
+
+    private String[] lines;
+    private MessageConfig chatMessage;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        Corpus.loadDefaultConfig();
+        this.lines = Corpus.load(this.corpus);
+        this.chatMessage = new MessageConfig("<__{USER}__> {MESSAGE}", "{MESSAGE}");
+    }
+
+    private Message nextMessage() {
+        HashMap<String, String> arguments = new HashMap<>();
+        arguments.put("MESSAGE", this.lines[this.index++ % this.lines.length]);
+        return new Message("Steve", this.chatMessage, arguments);
+    }
+
+    /**
+     * Without a channel there are no mentions to resolve, that needs a connected guild
+     */
+    @Benchmark
+    public String formattedTextDiscord() {
+        return nextMessage().getFormattedTextDiscord(null);
+    }
+
+    @Benchmark
+    public String formattedTextMinecraft() {
+        return nextMessage().getFormattedTextMinecraft();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filling in the arguments of a message template, from the template text and from a compiled template.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextFormatterBenchmark {
+    @Param({
+        "{MESSAGE}",
+        "<__{USER}__> {MESSAGE}",
+        "**{USER}** joined the game, {COUNT} players online ({USER} from {DIMENSION})",
+        "Server started"
+    })
+    public String template;
+
+    private String[] lines;
+    private TextFormatter formatter;
+    private TextTemplate compiled;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        this.lines = Corpus.load("chat");
+        this.formatter = new TextFormatter()
+            .addArgument("USER", "Steve")
+            .addArgument("COUNT", 12)
+            .addArgument("DIMENSION", "Overworld");
+        this.compiled = TextTemplate.compile(this.template);
+    }
+
+    @Benchmark
+    public String formatString() {
+        return this.formatter
+            .addArgument("MESSAGE", this.lines[this.index++ % this.lines.length])
+            .format(this.template);
+    }
+
+    @Benchmark
+    public String formatTemplate() {
+        return this.formatter
+            .addArgument("MESSAGE", this.lines[this.index++ % this.lines.length])
+            .format(this.compiled);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core.config.discord;
+
+import com.google.common.base.Joiner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the Minecraft command for a Discord command, compiled template against the old regex replacements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandConfigBenchmark {
+    @Param({
+        "tps",
+        "say {ARGS}",
+        "tp {ARG_1} {ARG_2}",
+        "give {ARG_1} {ARG_2} {ARG_3} {ARG_4}"
+    })
+    public String command;
+
+    @Param({"0", "2", "8"})
+    public int argsCount;
+
+    private CommandConfig config;
+    private List<String> args;
+
+    @Setup
+    public void setup() {
+        this.config = new CommandConfig("benchmark", this.command, true, true, new ArrayList<>(), new ArrayList<>());
+
+        this.args = new ArrayList<>();
+        for (int i = 0; i < this.argsCount; i++) {
+            this.args.add("argument" + i);
+        }
+    }
+
+    @Benchmark
+    public String template() {
+        return this.config.buildCommand(this.args);
+    }
+
+    @Benchmark
+    public String legacy() {
+        return legacyBuildCommand(this.command, this.args);
+    }
+
+    /**
+     * Arguments with $ or \ break the old implementation, the template inserts them as they are.
+     */
+    @Benchmark
+    public String templateSpecialCharacters() {
+        return this.config.buildCommand(Arrays.asList("$1", "C:\\path"));
+    }
+
+    /**
+     * CommandConfig.buildCommand before it used CommandTemplate.
+     */
+    private static String legacyBuildCommand(String command, List<String> args) {
+        String cmd = command;
+
+        int argsCount = args.size();
+        if (argsCount > 0) {
+            for (int i = 0; i < argsCount; i++) {
+                cmd = cmd.replaceAll("(?i)\\{ARG_" + (i + 1) + "}", args.get(i));
+            }
+            cmd = cmd.replaceAll("(?i)\\{ARGS}", Joiner.on(' ').join(args));
+        }
+        cmd = cmd.replaceAll("(?i)\\{(ARG_[0-9]+|ARGS)}", "");
+
+        return cmd.trim();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord;
+
+import chikachi.discord.core.DiscordIntegrationLogger;
+import chikachi.discord.core.config.Configuration;
+import chikachi.discord.core.config.discord.DiscordConfig;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
+import net.minecraft.util.ChatComponentText;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Discord messages waiting to be shown to players.
+ *
+ * Messages arrive on JDA's threads, but players may only be messaged from the server thread. Messages are queued
+ * already formatted and delivered at the end of a server tick, at most a configured number per tick, so a flood of
+ * messages is spread over several ticks.
+ */
+public class ChatDeliveryQueue {
+    private static ChatDeliveryQueue instance;
+
+    private final ConcurrentLinkedQueue<Delivery> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile boolean warnedFull = false;
+
+    private ChatDeliveryQueue() {
+    }
+
+    public static ChatDeliveryQueue getInstance() {
+        if (instance == null) {
+            instance = new ChatDeliveryQueue();
+        }
+
+        return instance;
+    }
+
+    /**
+     * @param text       Formatted message
+     * @param dimensions Sorted dimensions of the players to show it to, or empty for all players. Must not be modified.
+     * @return false, if the queue is full and the message was dropped
+     */
+    public boolean submit(String text, int[] dimensions) {
+        if (this.size.incrementAndGet() > Configuration.getConfig().discord.inboundQueueSize) {
+            this.size.decrementAndGet();
+
+            if (!this.warnedFull) {
+                this.warnedFull = true;
+                DiscordIntegrationLogger.Log("Too many Discord messages waiting to be shown in Minecraft, dropping messages", true);
+            }
+            return false;
+        }
+
+        this.queue.add(new Delivery(text, dimensions));
+        return true;
+    }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || this.queue.isEmpty()) {
+            return;
+        }
+
+        DiscordConfig discordConfig = Configuration.getConfig().discord;
+        PlayerRegistry registry = PlayerRegistry.getInstance();
+
+        Delivery delivery;
+        int delivered = 0;
+        while (delivered < discordConfig.inboundMessagesPerTick && (delivery = this.queue.poll()) != null) {
+            this.size.decrementAndGet();
+            delivered++;
+
+            // Every player gets the same component
+            ChatComponentText component = new ChatComponentText(delivery.text);
+            registry.forEachPlayer(delivery.dimensions, player -> player.addChatMessage(component));
+        }
+
+        if (this.queue.isEmpty()) {
+            this.warnedFull = false;
+        }
+    }
+
+    /**
+     * Throw away messages that weren't delivered, when the server stops.
+     */
+    public void clear() {
+        while (this.queue.poll() != null) {
+            this.size.decrementAndGet();
+        }
+    }
+
+    private static class Delivery {
+        private final String text;
+        private final int[] dimensions;
+
+        Delivery(String text, int[] dimensions) {
+            this.text = text;
+            this.dimensions = dimensions;
+        }
+    }
+}
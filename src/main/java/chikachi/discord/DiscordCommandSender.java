@@ -14,13 +14,14 @@
 
 package chikachi.discord;
 
-import chikachi.discord.core.Batcher;
+import chikachi.discord.core.DiscordClient;
 import chikachi.discord.core.DiscordIntegrationLogger;
+import chikachi.discord.core.KeyedBatcher;
+import chikachi.discord.core.MessageSplitter;
 import chikachi.discord.core.Patterns;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mojang.authlib.GameProfile;
 import net.dv8tion.jda.core.entities.MessageChannel;
 import net.dv8tion.jda.core.entities.User;
@@ -32,21 +33,27 @@ import net.minecraftforge.common.util.FakePlayer;
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 
 @SuppressWarnings("EntityConstructor")
 @ParametersAreNonnullByDefault
 public class DiscordCommandSender extends FakePlayer {
     private static final UUID playerUUID = UUID.fromString("f84c6a79-0a4e-45e0-879b-cd49ebd4c4e2");
-    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
-        new ThreadFactoryBuilder()
-            .setNameFormat(DiscordCommandSender.class.getSimpleName())
-            .setDaemon(true)
-            .build()
+    /**
+     * Output of every command sender, batched per channel
+     */
+    private static final KeyedBatcher<MessageChannel, String> batcher = new KeyedBatcher<>(
+        DiscordCommandSender::sendBatch,
+        100,
+        1000,
+        10,
+        MessageSplitter.MAX_LENGTH,
+        // Joined with a newline
+        message -> message.length() + 1,
+        10000,
+        DiscordClient.getInstance().getBatchExecutor(),
+        System::nanoTime
     );
     private final MessageChannel channel;
-    private final Batcher<String> batcher = new Batcher<String>(this::sendBatch, 100, 10, executor);
 
     public DiscordCommandSender(MessageChannel channel, User user) {
         super(MinecraftServer.getServer().worldServers[0], new GameProfile(playerUUID, "@" + user.getName()));
@@ -67,13 +74,13 @@ public class DiscordCommandSender extends FakePlayer {
     @Override
     public void addChatMessage(IChatComponent component) {
         Preconditions.checkNotNull(component);
-        batcher.queue(textComponentToDiscordMessage(component));
+        batcher.queue(this.channel, textComponentToDiscordMessage(component));
     }
 
     @Override
     public void addChatComponentMessage(IChatComponent component) {
         Preconditions.checkNotNull(component);
-        batcher.queue(textComponentToDiscordMessage(component));
+        batcher.queue(this.channel, textComponentToDiscordMessage(component));
     }
 
     private static String textComponentToDiscordMessage(IChatComponent component) {
@@ -82,22 +89,22 @@ public class DiscordCommandSender extends FakePlayer {
         ).replaceAll("");
     }
 
-    private void sendBatch(List<String> messages) {
+    private static void sendBatch(MessageChannel channel, List<String> messages) {
         final int numMessages = messages.size();
-        this.channel
-            .sendMessage(
-                Joiner.on("\n").join(messages)
-            )
-            .submit()
-            .exceptionally((Throwable t) -> {
-                // We could do some kind of retry here, but it feels like JDA should be responsible for that. Maybe it
-                // already does.
-                DiscordIntegrationLogger.Log(
-                    "Exception sending " + numMessages + " messages to Discord:\n"
-                        + Throwables.getStackTraceAsString(t),
-                    true
-                );
-                return null;
-            });
+        for (String chunk : MessageSplitter.split(Joiner.on("\n").join(messages))) {
+            channel
+                .sendMessage(chunk)
+                .submit()
+                .exceptionally((Throwable t) -> {
+                    // We could do some kind of retry here, but it feels like JDA should be responsible for that. Maybe it
+                    // already does.
+                    DiscordIntegrationLogger.Log(
+                        "Exception sending " + numMessages + " messages to Discord:\n"
+                            + Throwables.getStackTraceAsString(t),
+                        true
+                    );
+                    return null;
+                });
+        }
     }
 }
@@ -16,14 +16,16 @@ package chikachi.discord;
 
 import chikachi.discord.command.CommandDiscord;
 import chikachi.discord.core.CoreConstants;
-import chikachi.discord.core.CoreUtils;
 import chikachi.discord.core.DiscordClient;
 import chikachi.discord.core.Proxy;
+import chikachi.discord.core.config.Configuration;
 import chikachi.discord.listener.DiscordListener;
 import chikachi.discord.listener.MinecraftListener;
 import cpw.mods.fml.common.FMLCommonHandler;
 import cpw.mods.fml.common.Mod;
 import cpw.mods.fml.common.event.*;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
 import net.minecraftforge.common.MinecraftForge;
 
 @Mod(modid = CoreConstants.MODID, name = CoreConstants.MODNAME, version = CoreConstants.VERSION, acceptableRemoteVersions = "*")
@@ -37,11 +39,16 @@ public class DiscordIntegration {
     @Mod.EventHandler
     public void onPreInit(FMLPreInitializationEvent event) {
         proxy.onPreInit(event.getModConfigurationDirectory());
-
-        CoreUtils.addPatterns();
+        Configuration.addLoadListener(FloodGate.getInstance()::onConfigLoaded);
+        Configuration.addLoadListener(IMCOutbox.getInstance()::onConfigLoaded);
 
         MinecraftForge.EVENT_BUS.register(minecraftListener);
         FMLCommonHandler.instance().bus().register(minecraftListener);
+        FMLCommonHandler.instance().bus().register(FloodGate.getInstance());
+        FMLCommonHandler.instance().bus().register(ChatDeliveryQueue.getInstance());
+        FMLCommonHandler.instance().bus().register(IMCSubscriptions.getInstance());
+        FMLCommonHandler.instance().bus().register(IMCOutbox.getInstance());
+        FMLCommonHandler.instance().bus().register(this);
     }
 
     @Mod.EventHandler
@@ -75,6 +82,12 @@ public class DiscordIntegration {
     @Mod.EventHandler
     public void onServerStopped(FMLServerStoppedEvent event) {
         proxy.onServerStopped();
+
+        FloodGate.getInstance().clear();
+        ChatDeliveryQueue.getInstance().clear();
+        IMCSubscriptions.getInstance().clear();
+        IMCOutbox.getInstance().clear();
+        PlayerRegistry.getInstance().clear();
     }
 
     @Mod.EventHandler
@@ -83,4 +96,16 @@ public class DiscordIntegration {
             IMCHandler.onMessageReceived(imcMessage);
         }
     }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) {
+            return;
+        }
+
+        // Messages other mods send while the game is running are only handed over when asked for
+        for (FMLInterModComms.IMCMessage imcMessage : FMLInterModComms.fetchRuntimeMessages(this)) {
+            IMCHandler.onMessageReceived(imcMessage);
+        }
+    }
 }
@@ -0,0 +1,366 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord;
+
+import chikachi.discord.core.DiscordIntegrationLogger;
+import chikachi.discord.core.MinecraftFormattingCodes;
+import chikachi.discord.core.TokenBucket;
+import chikachi.discord.core.config.Configuration;
+import chikachi.discord.core.config.discord.DiscordFloodConfig;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Rate limits Discord messages on their way to Minecraft chat, per channel and per user.
+ *
+ * Every channel and every user has a token bucket. A message is shown if both have a token left. Otherwise it's
+ * dropped, counted and later summarized as "(+N more messages from X)", or delayed until the buckets refill, depending
+ * on the overflow policy. Summaries and delayed messages are released at the end of a server tick.
+ *
+ * Delayed messages wait per user, so a user over the limit only holds up their own messages. Users take turns
+ * releasing one message each while the channel has tokens left.
+ */
+public class FloodGate {
+    private static final int CLEANUP_TICKS = 1200;
+
+    private static FloodGate instance;
+
+    private final HashMap<Long, TokenBucket> channelBuckets = new HashMap<>();
+    private final HashMap<Long, TokenBucket> userBuckets = new HashMap<>();
+    /**
+     * Channel id -> user id -> messages not shown
+     */
+    private final HashMap<Long, LinkedHashMap<Long, Collapsed>> collapsed = new HashMap<>();
+    /**
+     * Channel id -> user id -> messages waiting for tokens
+     */
+    private final HashMap<Long, LinkedHashMap<Long, ArrayDeque<Delayed>>> delayed = new HashMap<>();
+    private final LinkedHashMap<Long, Stats> stats = new LinkedHashMap<>();
+    private int ticks = 0;
+
+    private final Supplier<DiscordFloodConfig> config;
+    private final BiConsumer<String, int[]> delivery;
+    private final LongSupplier clock;
+
+    /**
+     * @param config   The flood config to use
+     * @param delivery Shows a message to the players in the dimensions
+     * @param clock    Current time in nanoseconds, System::nanoTime outside of tests
+     */
+    FloodGate(Supplier<DiscordFloodConfig> config, BiConsumer<String, int[]> delivery, LongSupplier clock) {
+        this.config = config;
+        this.delivery = delivery;
+        this.clock = clock;
+    }
+
+    public static FloodGate getInstance() {
+        if (instance == null) {
+            instance = new FloodGate(
+                () -> Configuration.getConfig().discord.flood,
+                (text, dimensions) -> {
+                    DiscordIntegrationLogger.Log(text);
+                    ChatDeliveryQueue.getInstance().submit(text, dimensions);
+                },
+                System::nanoTime
+            );
+        }
+
+        return instance;
+    }
+
+    /**
+     * Only deciding what happens to the message takes the lock. Formatting and delivering happen after, on the calling
+     * thread, so a busy Discord channel can't hold up the server tick.
+     *
+     * @param channelId  Channel the message was sent in
+     * @param userId     User that sent the message
+     * @param userName   Name to show in a summary of collapsed messages
+     * @param text       Formats the message, only called if the message isn't dropped or collapsed
+     * @param dimensions Sorted dimensions of the players to show it to, or empty for all players
+     */
+    public void submit(long channelId, long userId, String userName, Supplier<String> text, int[] dimensions) {
+        // Null if the message is shown right away
+        Delayed delayed;
+
+        synchronized (this) {
+            DiscordFloodConfig config = this.config.get();
+            if (!config.enabled) {
+                delayed = null;
+            } else {
+                long now = this.clock.getAsLong();
+                Stats channelStats = this.stats.computeIfAbsent(channelId, id -> new Stats());
+
+                LinkedHashMap<Long, ArrayDeque<Delayed>> channelDelayed = this.delayed.get(channelId);
+                ArrayDeque<Delayed> userDelayed = channelDelayed != null ? channelDelayed.get(userId) : null;
+                // The user's earlier messages go first
+                boolean waiting = userDelayed != null && !userDelayed.isEmpty();
+
+                if (!waiting && tryAcquire(channelId, userId, config, now)) {
+                    channelStats.passed++;
+                    delayed = null;
+                } else if (config.isDropping()) {
+                    channelStats.dropped++;
+                    return;
+                } else if (config.isDelaying()) {
+                    if (userDelayed == null) {
+                        userDelayed = new ArrayDeque<>();
+                        this.delayed.computeIfAbsent(channelId, id -> new LinkedHashMap<>()).put(userId, userDelayed);
+                    }
+
+                    if (userDelayed.size() >= config.maxDelayedMessages) {
+                        channelStats.dropped++;
+                        return;
+                    }
+
+                    // Holds the message's place in the queue until it's formatted
+                    channelStats.delayed++;
+                    delayed = new Delayed(userId, dimensions);
+                    userDelayed.add(delayed);
+                } else {
+                    channelStats.collapsed++;
+                    this.collapsed
+                        .computeIfAbsent(channelId, id -> new LinkedHashMap<>())
+                        .computeIfAbsent(userId, id -> new Collapsed(userName, dimensions))
+                        .count++;
+                    return;
+                }
+            }
+        }
+
+        if (delayed == null) {
+            this.delivery.accept(text.get(), dimensions);
+            return;
+        }
+
+        String formatted = null;
+        try {
+            formatted = text.get();
+        } finally {
+            synchronized (this) {
+                if (formatted != null) {
+                    delayed.text = formatted;
+                } else {
+                    // Formatting failed, don't hold up the user's other messages
+                    LinkedHashMap<Long, ArrayDeque<Delayed>> channelDelayed = this.delayed.get(channelId);
+                    ArrayDeque<Delayed> userDelayed = channelDelayed != null ? channelDelayed.get(userId) : null;
+                    if (userDelayed != null) {
+                        userDelayed.remove(delayed);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean tryAcquire(long channelId, long userId, DiscordFloodConfig config, long now) {
+        TokenBucket channelBucket = this.channelBuckets.computeIfAbsent(channelId, id -> new TokenBucket(config.channelBurst, config.channelMessagesPerSecond, now));
+        TokenBucket userBucket = this.userBuckets.computeIfAbsent(userId, id -> new TokenBucket(config.userBurst, config.userMessagesPerSecond, now));
+
+        // Check both first, so a user over the limit doesn't use up the channel's tokens
+        if (!channelBucket.hasToken(now) || !userBucket.hasToken(now)) {
+            return false;
+        }
+        channelBucket.tryAcquire(now);
+        userBucket.tryAcquire(now);
+        return true;
+    }
+
+    /**
+     * The limits might have changed, start over with new buckets.
+     */
+    public synchronized void onConfigLoaded() {
+        this.channelBuckets.clear();
+        this.userBuckets.clear();
+    }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            tick();
+        }
+    }
+
+    /**
+     * Release the summaries and delayed messages the buckets have tokens for.
+     */
+    void tick() {
+        List<Delayed> released = new ArrayList<>();
+
+        synchronized (this) {
+            DiscordFloodConfig config = this.config.get();
+            long now = this.clock.getAsLong();
+
+            releaseDelayed(config, now, released);
+            releaseCollapsed(config, now, released);
+
+            if (++this.ticks >= CLEANUP_TICKS) {
+                this.ticks = 0;
+                // A full bucket is the same as a new one
+                this.channelBuckets.values().removeIf(bucket -> bucket.isFull(now));
+                this.userBuckets.values().removeIf(bucket -> bucket.isFull(now));
+            }
+        }
+
+        for (Delayed message : released) {
+            this.delivery.accept(message.text, message.dimensions);
+        }
+    }
+
+    private void releaseDelayed(DiscordFloodConfig config, long now, List<Delayed> released) {
+        Iterator<Map.Entry<Long, LinkedHashMap<Long, ArrayDeque<Delayed>>>> channels = this.delayed.entrySet().iterator();
+        while (channels.hasNext()) {
+            Map.Entry<Long, LinkedHashMap<Long, ArrayDeque<Delayed>>> entry = channels.next();
+
+            boolean releasing = true;
+            while (releasing) {
+                releasing = false;
+
+                Iterator<ArrayDeque<Delayed>> users = entry.getValue().values().iterator();
+                while (users.hasNext()) {
+                    ArrayDeque<Delayed> messages = users.next();
+
+                    // A message still being formatted holds up the user's later ones
+                    Delayed message = messages.peek();
+                    if (message != null && message.text != null && tryAcquire(entry.getKey(), message.userId, config, now)) {
+                        messages.poll();
+                        released.add(message);
+                        releasing = true;
+                    }
+
+                    if (messages.isEmpty()) {
+                        users.remove();
+                    }
+                }
+            }
+
+            if (entry.getValue().isEmpty()) {
+                channels.remove();
+            }
+        }
+    }
+
+    private void releaseCollapsed(DiscordFloodConfig config, long now, List<Delayed> released) {
+        Iterator<Map.Entry<Long, LinkedHashMap<Long, Collapsed>>> channels = this.collapsed.entrySet().iterator();
+        while (channels.hasNext()) {
+            Map.Entry<Long, LinkedHashMap<Long, Collapsed>> entry = channels.next();
+
+            Iterator<Map.Entry<Long, Collapsed>> users = entry.getValue().entrySet().iterator();
+            while (users.hasNext()) {
+                Map.Entry<Long, Collapsed> user = users.next();
+                if (!tryAcquire(entry.getKey(), user.getKey(), config, now)) {
+                    continue;
+                }
+
+                Collapsed summary = user.getValue();
+                Delayed message = new Delayed(user.getKey(), summary.dimensions);
+                message.text = String.format(
+                    MinecraftFormattingCodes.GRAY + "(+%d more message%s from %s)",
+                    summary.count,
+                    summary.count == 1 ? "" : "s",
+                    summary.userName
+                );
+                released.add(message);
+                users.remove();
+            }
+
+            if (entry.getValue().isEmpty()) {
+                channels.remove();
+            }
+        }
+    }
+
+    /**
+     * @return Channel id -> copy of the counters of the channel
+     */
+    public synchronized Map<Long, Stats> getStats() {
+        LinkedHashMap<Long, Stats> copy = new LinkedHashMap<>();
+        this.stats.forEach((channelId, channelStats) -> copy.put(channelId, channelStats.copy()));
+        return copy;
+    }
+
+    public synchronized void clear() {
+        this.channelBuckets.clear();
+        this.userBuckets.clear();
+        this.collapsed.clear();
+        this.delayed.clear();
+    }
+
+    public static class Stats {
+        private long passed;
+        private long dropped;
+        private long collapsed;
+        private long delayed;
+
+        private Stats copy() {
+            Stats copy = new Stats();
+            copy.passed = this.passed;
+            copy.dropped = this.dropped;
+            copy.collapsed = this.collapsed;
+            copy.delayed = this.delayed;
+            return copy;
+        }
+
+        public long getPassed() {
+            return passed;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        public long getCollapsed() {
+            return collapsed;
+        }
+
+        public long getDelayed() {
+            return delayed;
+        }
+    }
+
+    private static class Collapsed {
+        private final String userName;
+        private final int[] dimensions;
+        private int count;
+
+        Collapsed(String userName, int[] dimensions) {
+            this.userName = userName;
+            this.dimensions = dimensions;
+        }
+    }
+
+    private static class Delayed {
+        private final long userId;
+        private final int[] dimensions;
+        /**
+         * Null until the message is formatted
+         */
+        private String text;
+
+        Delayed(long userId, int[] dimensions) {
+            this.userId = userId;
+            this.dimensions = dimensions;
+        }
+    }
+}
@@ -14,22 +14,21 @@
 
 package chikachi.discord;
 
-import chikachi.discord.core.DiscordClient;
 import chikachi.discord.core.DiscordIntegrationLogger;
-import chikachi.discord.core.Message;
 import chikachi.discord.core.config.Configuration;
 import chikachi.discord.core.config.imc.IMCConfig;
-import chikachi.discord.core.config.types.MessageConfig;
 import cpw.mods.fml.common.event.FMLInterModComms;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraftforge.common.util.Constants;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class IMCHandler {
-    private static List<String> registeredIMCMods = new ArrayList<>();
-
-    private static void sendStatusIMC(String modId, boolean success, String method, String message) {
+    static void sendStatusIMC(String modId, boolean success, String method, String message) {
         NBTTagCompound data = new NBTTagCompound();
 
         data.setString("method", method);
@@ -55,8 +54,9 @@ public class IMCHandler {
     @SuppressWarnings("UnusedParameters")
     private static void onMessageReceived(String modId, String key, String message) {
         IMCConfig imcConfig = Configuration.getConfig().imc;
+        IMCSubscriptions subscriptions = IMCSubscriptions.getInstance();
         if (key.equalsIgnoreCase("registerListener")) {
-            if (!registeredIMCMods.contains(modId)) {
+            if (!subscriptions.isSubscribed(modId)) {
                 if (imcConfig.isAllowed(modId)) {
                     DiscordIntegrationLogger.Log(
                         String.format(
@@ -65,17 +65,18 @@ public class IMCHandler {
                         )
                     );
 
-                    sendStatusIMC(modId, true, key, "Registered");
+                    // Every event from every channel, like before subscriptions
+                    subscriptions.subscribe(modId, Collections.emptySet(), Collections.emptySet());
 
-                    registeredIMCMods.add(modId);
+                    sendStatusIMC(modId, true, key, "Registered");
                 } else {
                     notAllowed(modId, key, "register as IMC listener");
                 }
             } else if (imcConfig.isAllowed(modId)) {
                 sendStatusIMC(modId, false, key, "Already registered");
             }
-        } else if (key.equalsIgnoreCase("unregisterListener")) {
-            if (registeredIMCMods.contains(modId)) {
+        } else if (key.equalsIgnoreCase("unregisterListener") || key.equalsIgnoreCase("unsubscribe")) {
+            if (subscriptions.unsubscribe(modId)) {
                 DiscordIntegrationLogger.Log(
                     String.format(
                         "Removed %s as listener",
@@ -84,8 +85,6 @@ public class IMCHandler {
                 );
 
                 sendStatusIMC(modId, true, key, "Unregistered");
-
-                registeredIMCMods.remove(modId);
             } else if (imcConfig.isAllowed(modId)) {
                 sendStatusIMC(modId, false, key, "Already unregistered");
             }
@@ -94,7 +93,43 @@ public class IMCHandler {
 
     private static void onMessageReceived(String modId, String key, NBTTagCompound message) {
         IMCConfig imcConfig = Configuration.getConfig().imc;
-        if (key.equalsIgnoreCase("sendMessage")) {
+        if (key.equalsIgnoreCase("subscribe")) {
+            if (!imcConfig.isAllowed(modId)) {
+                notAllowed(modId, key, "subscribe to IMC events");
+                return;
+            }
+
+            Set<String> events = new HashSet<>();
+            NBTTagList eventList = message.getTagList("events", Constants.NBT.TAG_STRING);
+            for (int i = 0; i < eventList.tagCount(); i++) {
+                events.add(eventList.getStringTagAt(i));
+            }
+
+            Set<Long> channels = new HashSet<>();
+            NBTTagList channelList = message.getTagList("channels", Constants.NBT.TAG_STRING);
+            for (int i = 0; i < channelList.tagCount(); i++) {
+                try {
+                    channels.add(Long.parseLong(channelList.getStringTagAt(i)));
+                } catch (NumberFormatException e) {
+                    sendStatusIMC(modId, false, key, "Invalid channel " + channelList.getStringTagAt(i));
+                    return;
+                }
+            }
+
+            boolean added = IMCSubscriptions.getInstance().subscribe(modId, events, channels);
+
+            DiscordIntegrationLogger.Log(
+                String.format(
+                    "%s %s to %s events from %s",
+                    added ? "Subscribed" : "Changed subscription of",
+                    modId,
+                    events.isEmpty() ? "all" : String.join(", ", events),
+                    channels.isEmpty() ? "all channels" : channels.size() + " channel" + (channels.size() == 1 ? "" : "s")
+                )
+            );
+
+            sendStatusIMC(modId, true, key, added ? "Subscribed" : "Updated");
+        } else if (key.equalsIgnoreCase("sendMessage")) {
             if (!imcConfig.isAllowed(modId)) {
                 notAllowed(modId, key, "send a message");
                 return;
@@ -110,17 +145,18 @@ public class IMCHandler {
                 return;
             }
 
-            DiscordClient.getInstance().broadcast(
-                new Message(
-                    modId,
-                    new MessageConfig(
-                        message.getString("message")
-                    )
-                ),
-                message.getLong("channel")
+            // Replied to once Discord accepted the message
+            boolean queued = IMCOutbox.getInstance().submit(
+                modId,
+                key,
+                message.getLong("channel"),
+                message.getString("message"),
+                message.getBoolean("priority")
             );
 
-            sendStatusIMC(modId, true, key, "Sent");
+            if (!queued) {
+                sendStatusIMC(modId, false, key, "Too many messages waiting");
+            }
         }
     }
 
@@ -140,28 +176,23 @@ public class IMCHandler {
     }
 
     public static boolean haveListeners() {
-        return registeredIMCMods.size() > 0;
+        return !IMCSubscriptions.getInstance().isEmpty();
     }
 
     @SuppressWarnings("unused")
     public static List<String> getRegisteredIMCMods() {
-        return registeredIMCMods;
+        return IMCSubscriptions.getInstance().getSubscribers();
     }
 
+    /**
+     * Send a message to every subscribed mod right away, regardless of what it subscribed to.
+     * Events should go through {@link IMCSubscriptions#emit} instead.
+     */
     @SuppressWarnings("unused")
     public static void emitMessage(String key, String message) {
-        registeredIMCMods.forEach(registeredIMCMod -> FMLInterModComms.sendRuntimeMessage(
+        IMCSubscriptions.getInstance().getSubscribers().forEach(modId -> FMLInterModComms.sendRuntimeMessage(
             DiscordIntegration.instance,
-            registeredIMCMod,
-            key,
-            message
-        ));
-    }
-
-    public static void emitMessage(String key, NBTTagCompound message) {
-        registeredIMCMods.forEach(registeredIMCMod -> FMLInterModComms.sendRuntimeMessage(
-            DiscordIntegration.instance,
-            registeredIMCMod,
+            modId,
             key,
             message
         ));
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord;
+
+import chikachi.discord.core.DiscordClient;
+import chikachi.discord.core.Message;
+import chikachi.discord.core.MessageSplitter;
+import chikachi.discord.core.TokenBucket;
+import chikachi.discord.core.config.Configuration;
+import chikachi.discord.core.config.imc.IMCConfig;
+import chikachi.discord.core.config.types.MessageConfig;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Messages other mods asked to send to Discord through IMC, waiting for their turn.
+ *
+ * Every mod has its own queue and its own token bucket, so a chatty mod only uses up its own quota. A message waits a
+ * few ticks for more messages from the same mod to the same channel, and they are sent together as one Discord
+ * message. Priority messages skip the wait and go before the other messages of the mod.
+ *
+ * The mod is told a message was sent, or why it wasn't, once Discord answered. Those replies are sent at the end of a
+ * server tick.
+ */
+public class IMCOutbox {
+    private static IMCOutbox instance;
+
+    private final LinkedHashMap<String, ModQueue> queues = new LinkedHashMap<>();
+    private final ConcurrentLinkedQueue<Reply> replies = new ConcurrentLinkedQueue<>();
+    private long ticks = 0;
+
+    private IMCOutbox() {
+    }
+
+    public static IMCOutbox getInstance() {
+        if (instance == null) {
+            instance = new IMCOutbox();
+        }
+
+        return instance;
+    }
+
+    /**
+     * @param modId     Mod sending the message
+     * @param key       IMC key to reply to
+     * @param channelId Channel to send the message to
+     * @param text      Message
+     * @param priority  Send before the other messages of the mod, without waiting for more messages
+     * @return false, if the mod has too many messages waiting and the message was refused
+     */
+    public synchronized boolean submit(String modId, String key, long channelId, String text, boolean priority) {
+        IMCConfig config = Configuration.getConfig().imc;
+        ModQueue queue = this.queues.computeIfAbsent(modId, id -> new ModQueue(config));
+
+        if (queue.size() >= config.sendQueueSize) {
+            return false;
+        }
+
+        (priority ? queue.priority : queue.normal).add(new Pending(key, channelId, text, this.ticks));
+        return true;
+    }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) {
+            return;
+        }
+
+        Reply reply;
+        while ((reply = this.replies.poll()) != null) {
+            IMCHandler.sendStatusIMC(reply.modId, reply.success, reply.key, reply.message);
+        }
+
+        sendQueued();
+    }
+
+    private synchronized void sendQueued() {
+        this.ticks++;
+
+        if (this.queues.isEmpty() || !DiscordClient.getInstance().isConnected()) {
+            return;
+        }
+
+        IMCConfig config = Configuration.getConfig().imc;
+        long now = System.nanoTime();
+
+        Iterator<Map.Entry<String, ModQueue>> mods = this.queues.entrySet().iterator();
+        while (mods.hasNext()) {
+            Map.Entry<String, ModQueue> entry = mods.next();
+            ModQueue queue = entry.getValue();
+
+            while (queue.size() > 0) {
+                ArrayDeque<Pending> from = queue.priority.isEmpty() ? queue.normal : queue.priority;
+                Pending first = from.peek();
+                if (from == queue.normal && this.ticks - first.queuedAt < config.sendBatchTicks) {
+                    break;
+                }
+
+                if (!queue.bucket.tryAcquire(now)) {
+                    break;
+                }
+
+                send(entry.getKey(), takeBatch(from, first.channelId), first.channelId);
+            }
+
+            // A full bucket is the same as a new one
+            if (queue.size() == 0 && queue.bucket.isFull(now)) {
+                mods.remove();
+            }
+        }
+    }
+
+    /**
+     * Take the waiting messages to a channel, in order, as many as fit in one Discord message.
+     */
+    private static List<Pending> takeBatch(ArrayDeque<Pending> from, long channelId) {
+        List<Pending> batch = new ArrayList<>();
+        int length = -1;
+
+        Iterator<Pending> iterator = from.iterator();
+        while (iterator.hasNext()) {
+            Pending pending = iterator.next();
+            if (pending.channelId != channelId) {
+                continue;
+            }
+
+            if (!batch.isEmpty() && length + 1 + pending.text.length() > MessageSplitter.MAX_LENGTH) {
+                break;
+            }
+
+            batch.add(pending);
+            length += 1 + pending.text.length();
+            iterator.remove();
+        }
+
+        return batch;
+    }
+
+    private void send(String modId, List<Pending> batch, long channelId) {
+        StringBuilder text = new StringBuilder();
+        for (Pending pending : batch) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(pending.text);
+        }
+
+        DiscordClient.getInstance()
+            .send(new Message(modId, new MessageConfig(text.toString())), channelId)
+            .whenComplete((result, throwable) -> {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                String message = cause == null ? "Sent" : "Could not send: " + cause.getMessage();
+
+                for (Pending pending : batch) {
+                    this.replies.add(new Reply(modId, cause == null, pending.key, message));
+                }
+            });
+    }
+
+    /**
+     * The quotas might have changed, give every mod a new bucket.
+     */
+    public synchronized void onConfigLoaded() {
+        IMCConfig config = Configuration.getConfig().imc;
+        this.queues.values().forEach(queue -> queue.bucket = new TokenBucket(config.sendBurst, config.sendMessagesPerSecond, System.nanoTime()));
+    }
+
+    /**
+     * Throw away messages that weren't sent, when the server stops.
+     */
+    public synchronized void clear() {
+        this.queues.clear();
+        this.replies.clear();
+    }
+
+    private static class ModQueue {
+        private final ArrayDeque<Pending> priority = new ArrayDeque<>();
+        private final ArrayDeque<Pending> normal = new ArrayDeque<>();
+        private TokenBucket bucket;
+
+        ModQueue(IMCConfig config) {
+            this.bucket = new TokenBucket(config.sendBurst, config.sendMessagesPerSecond, System.nanoTime());
+        }
+
+        int size() {
+            return this.priority.size() + this.normal.size();
+        }
+    }
+
+    private static class Pending {
+        private final String key;
+        private final long channelId;
+        private final String text;
+        private final long queuedAt;
+
+        Pending(String key, long channelId, String text, long queuedAt) {
+            this.key = key;
+            this.channelId = channelId;
+            this.text = text;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    private static class Reply {
+        private final String modId;
+        private final boolean success;
+        private final String key;
+        private final String message;
+
+        Reply(String modId, boolean success, String key, String message) {
+            this.modId = modId;
+            this.success = success;
+            this.key = key;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord;
+
+import chikachi.discord.core.DiscordIntegrationLogger;
+import chikachi.discord.core.config.Configuration;
+import chikachi.discord.core.config.imc.IMCConfig;
+import cpw.mods.fml.common.event.FMLInterModComms;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
+import net.minecraft.nbt.NBTTagCompound;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Mods listening for IMC events, and the events waiting to be sent to them.
+ *
+ * A mod subscribes to some event types and channels, or to everything. Events are only built if a subscribed mod wants
+ * them, and are queued per mod to be sent at the end of a server tick. When a mod's queue is full, new events for it
+ * are dropped and counted.
+ */
+public class IMCSubscriptions {
+    private static IMCSubscriptions instance;
+
+    private final ConcurrentHashMap<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    private IMCSubscriptions() {
+    }
+
+    public static IMCSubscriptions getInstance() {
+        if (instance == null) {
+            instance = new IMCSubscriptions();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Subscribe a mod, replacing what it was subscribed to before.
+     *
+     * @param types    Event types, or empty for all types
+     * @param channels Discord channel ids, or empty for all channels
+     * @return false, if the mod was already subscribed
+     */
+    public boolean subscribe(String modId, Set<String> types, Set<Long> channels) {
+        Set<String> lowercaseTypes = new HashSet<>();
+        types.forEach(type -> lowercaseTypes.add(type.toLowerCase(Locale.ROOT)));
+
+        Subscriber subscriber = new Subscriber(
+            modId,
+            Collections.unmodifiableSet(lowercaseTypes),
+            Collections.unmodifiableSet(new HashSet<>(channels)),
+            Configuration.getConfig().imc.queueSize
+        );
+        return this.subscribers.put(modId, subscriber) == null;
+    }
+
+    /**
+     * @return false, if the mod wasn't subscribed
+     */
+    public boolean unsubscribe(String modId) {
+        return this.subscribers.remove(modId) != null;
+    }
+
+    public boolean isSubscribed(String modId) {
+        return this.subscribers.containsKey(modId);
+    }
+
+    public boolean isEmpty() {
+        return this.subscribers.isEmpty();
+    }
+
+    /**
+     * @return true, if any mod wants events of that type from that channel
+     */
+    public boolean wants(String type, long channelId) {
+        for (Subscriber subscriber : this.subscribers.values()) {
+            if (subscriber.wants(type, channelId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Queue an event for every mod that wants it. Can be called from any thread.
+     *
+     * @param type      Event type, lowercase
+     * @param channelId Discord channel the event is from
+     * @param payload   Builds the event, at most once. All mods get the same compound, so they must not modify it.
+     */
+    public void emit(String type, long channelId, Supplier<NBTTagCompound> payload) {
+        NBTTagCompound message = null;
+
+        for (Subscriber subscriber : this.subscribers.values()) {
+            if (!subscriber.wants(type, channelId)) {
+                continue;
+            }
+
+            if (message == null) {
+                message = payload.get();
+            }
+
+            if (!subscriber.queue.offer(message) && subscriber.dropped.getAndIncrement() == 0) {
+                DiscordIntegrationLogger.Log(
+                    String.format(
+                        "%s isn't keeping up with IMC events, dropping events",
+                        subscriber.modId
+                    ),
+                    true
+                );
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || this.subscribers.isEmpty()) {
+            return;
+        }
+
+        IMCConfig imcConfig = Configuration.getConfig().imc;
+
+        for (Subscriber subscriber : this.subscribers.values()) {
+            NBTTagCompound message;
+            int sent = 0;
+            while (sent < imcConfig.eventsPerTick && (message = subscriber.queue.poll()) != null) {
+                sent++;
+                FMLInterModComms.sendRuntimeMessage(
+                    DiscordIntegration.instance,
+                    subscriber.modId,
+                    "event",
+                    message
+                );
+            }
+        }
+    }
+
+    /**
+     * Throw away events that weren't sent, when the server stops. Mods stay subscribed.
+     */
+    public void clear() {
+        this.subscribers.values().forEach(subscriber -> subscriber.queue.clear());
+    }
+
+    public List<String> getSubscribers() {
+        return new ArrayList<>(this.subscribers.keySet());
+    }
+
+    /**
+     * @return Events dropped for the mod because its queue was full, or 0 if it isn't subscribed
+     */
+    public long getDropped(String modId) {
+        Subscriber subscriber = this.subscribers.get(modId);
+        return subscriber != null ? subscriber.dropped.get() : 0;
+    }
+
+    private static class Subscriber {
+        private final String modId;
+        private final Set<String> types;
+        private final Set<Long> channels;
+        private final ArrayBlockingQueue<NBTTagCompound> queue;
+        private final AtomicLong dropped = new AtomicLong();
+
+        Subscriber(String modId, Set<String> types, Set<Long> channels, int queueSize) {
+            this.modId = modId;
+            this.types = types;
+            this.channels = channels;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        boolean wants(String type, long channelId) {
+            return (this.types.isEmpty() || this.types.contains(type))
+                && (this.channels.isEmpty() || this.channels.contains(channelId));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Online players by dimension.
+ *
+ * Kept up to date from the login, logout, respawn and dimension change events, so picking the players of some
+ * dimensions only looks at those players instead of everyone online. Respawning replaces the player entity, so
+ * players are tracked by UUID.
+ */
+public class PlayerRegistry {
+    private static PlayerRegistry instance;
+
+    private final ConcurrentHashMap<UUID, EntityPlayerMP> players = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Integer> playerDimensions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, ConcurrentHashMap<UUID, EntityPlayerMP>> dimensions = new ConcurrentHashMap<>();
+
+    private PlayerRegistry() {
+    }
+
+    public static PlayerRegistry getInstance() {
+        if (instance == null) {
+            instance = new PlayerRegistry();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Add the player, or move them to the dimension they are in now.
+     */
+    public void track(EntityPlayerMP player) {
+        track(player, player.dimension);
+    }
+
+    public void track(EntityPlayerMP player, int dimension) {
+        UUID playerId = player.getGameProfile().getId();
+
+        Integer previous = this.playerDimensions.put(playerId, dimension);
+        if (previous != null && previous != dimension) {
+            removeFromDimension(previous, playerId);
+        }
+
+        this.players.put(playerId, player);
+        this.dimensions.computeIfAbsent(dimension, key -> new ConcurrentHashMap<>()).put(playerId, player);
+    }
+
+    public void untrack(EntityPlayerMP player) {
+        UUID playerId = player.getGameProfile().getId();
+
+        this.players.remove(playerId);
+        Integer dimension = this.playerDimensions.remove(playerId);
+        if (dimension != null) {
+            removeFromDimension(dimension, playerId);
+        }
+    }
+
+    private void removeFromDimension(int dimension, UUID playerId) {
+        this.dimensions.computeIfPresent(dimension, (key, players) -> {
+            players.remove(playerId);
+            return players.isEmpty() ? null : players;
+        });
+    }
+
+    public void clear() {
+        this.players.clear();
+        this.playerDimensions.clear();
+        this.dimensions.clear();
+    }
+
+    /**
+     * @param dimensions Sorted dimension ids, or empty for all dimensions
+     * @param action     Called for every online player in those dimensions
+     */
+    public void forEachPlayer(int[] dimensions, Consumer<EntityPlayerMP> action) {
+        if (dimensions.length == 0) {
+            this.players.values().forEach(action);
+            return;
+        }
+
+        for (int dimension : dimensions) {
+            Map<UUID, EntityPlayerMP> players = this.dimensions.get(dimension);
+            if (players != null) {
+                players.values().forEach(action);
+            }
+        }
+    }
+
+    /**
+     * @param dimensions Sorted dimension ids, or empty for all dimensions
+     */
+    public int count(int[] dimensions) {
+        if (dimensions.length == 0) {
+            return this.players.size();
+        }
+
+        int count = 0;
+        for (int dimension : dimensions) {
+            Map<UUID, EntityPlayerMP> players = this.dimensions.get(dimension);
+            if (players != null) {
+                count += players.size();
+            }
+        }
+        return count;
+    }
+
+    public Collection<EntityPlayerMP> getPlayers() {
+        return this.players.values();
+    }
+
+    public List<EntityPlayerMP> getPlayers(int[] dimensions) {
+        List<EntityPlayerMP> players = new ArrayList<>(count(dimensions));
+        forEachPlayer(dimensions, players::add);
+        return players;
+    }
+}
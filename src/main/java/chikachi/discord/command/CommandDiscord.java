@@ -39,7 +39,7 @@ public class CommandDiscord extends CommandBase {
 
     @Override
     public String getCommandUsage(ICommandSender sender) {
-        return "/discord <config|online" + (Configuration.getConfig().discord.allowLinking ? "|link|unlink" : "") + "|tps|unstuck|uptime> [options]";
+        return "/discord <config|filters|flood|online" + (Configuration.getConfig().discord.allowLinking ? "|link|unlink" : "") + "|tps|unstuck|uptime> [options]";
     }
 
     @Override
@@ -61,6 +61,12 @@ public class CommandDiscord extends CommandBase {
             case "config":
                 SubCommandConfig.execute(sender, argsList);
                 break;
+            case "filters":
+                SubCommandFilters.execute(sender, argsList);
+                break;
+            case "flood":
+                SubCommandFlood.execute(sender);
+                break;
             /*case "connect":
                 DiscordClient.getInstance().connect(true);
                 break;
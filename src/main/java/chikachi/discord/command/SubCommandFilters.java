@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.command;
+
+import chikachi.discord.DiscordCommandSender;
+import chikachi.discord.core.IgnoreFilter;
+import chikachi.discord.core.MinecraftFormattingCodes;
+import chikachi.discord.core.config.Configuration;
+import chikachi.discord.core.config.minecraft.MinecraftGenericConfig;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.util.ChatComponentText;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+class SubCommandFilters {
+    static void execute(ICommandSender sender, ArrayList<String> args) {
+        MinecraftGenericConfig genericConfig = Configuration.getConfig().minecraft.dimensions.generic;
+
+        String type = args.size() > 0 ? args.get(0).toLowerCase() : "";
+        switch (type) {
+            case "":
+                sendRules(sender, "Message", genericConfig.getMessageFilter());
+                sendRules(sender, "Command", genericConfig.getCommandFilter());
+                break;
+            case "message":
+                sendRules(sender, "Message", genericConfig.getMessageFilter());
+                break;
+            case "command":
+                sendRules(sender, "Command", genericConfig.getCommandFilter());
+                break;
+            default:
+                sender.addChatMessage(new ChatComponentText(MinecraftFormattingCodes.DARK_RED + "Unknown filter, use message or command"));
+                break;
+        }
+    }
+
+    private static void sendRules(ICommandSender sender, String name, IgnoreFilter filter) {
+        boolean isDiscord = sender instanceof DiscordCommandSender;
+
+        List<IgnoreFilter.Rule> rules = filter.getRules();
+        if (rules.size() == 0) {
+            sender.addChatMessage(new ChatComponentText(String.format("%s filter has no patterns", name)));
+            return;
+        }
+
+        // Rules doing the most work first
+        rules.sort(Comparator.comparingLong(IgnoreFilter.Rule::getHits).reversed());
+
+        StringBuilder sb = new StringBuilder(String.format("%s filter (%d pattern%s):", name, rules.size(), rules.size() == 1 ? "" : "s"));
+        for (IgnoreFilter.Rule rule : rules) {
+            sb.append('\n').append(
+                String.format(
+                    isDiscord ? "%d - `%s`" : "%d - %s",
+                    rule.getHits(),
+                    rule.getPattern().pattern()
+                )
+            );
+        }
+
+        sender.addChatMessage(new ChatComponentText(sb.toString()));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.command;
+
+import chikachi.discord.DiscordCommandSender;
+import chikachi.discord.FloodGate;
+import chikachi.discord.core.DiscordClient;
+import chikachi.discord.core.config.Configuration;
+import chikachi.discord.core.config.discord.DiscordFloodConfig;
+import net.dv8tion.jda.core.JDA;
+import net.dv8tion.jda.core.entities.TextChannel;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.util.ChatComponentText;
+
+import java.util.Map;
+
+class SubCommandFlood {
+    static void execute(ICommandSender sender) {
+        boolean isDiscord = sender instanceof DiscordCommandSender;
+        DiscordFloodConfig floodConfig = Configuration.getConfig().discord.flood;
+
+        if (!floodConfig.enabled) {
+            sender.addChatMessage(new ChatComponentText("Flood control is disabled"));
+            return;
+        }
+
+        Map<Long, FloodGate.Stats> stats = FloodGate.getInstance().getStats();
+
+        StringBuilder sb = new StringBuilder(
+            String.format(
+                "Flood control (%s): %.1f messages/s per channel (burst %d), %.1f messages/s per user (burst %d)",
+                floodConfig.overflowPolicy,
+                floodConfig.channelMessagesPerSecond,
+                floodConfig.channelBurst,
+                floodConfig.userMessagesPerSecond,
+                floodConfig.userBurst
+            )
+        );
+
+        if (stats.isEmpty()) {
+            sb.append("\nNo messages yet");
+        }
+
+        JDA jda = DiscordClient.getInstance().getJda();
+        for (Map.Entry<Long, FloodGate.Stats> entry : stats.entrySet()) {
+            TextChannel channel = jda != null ? jda.getTextChannelById(entry.getKey()) : null;
+            FloodGate.Stats channelStats = entry.getValue();
+
+            sb.append('\n').append(
+                String.format(
+                    isDiscord ? "`#%s` - %d shown, %d dropped, %d collapsed, %d delayed" : "#%s - %d shown, %d dropped, %d collapsed, %d delayed",
+                    channel != null ? channel.getName() : entry.getKey(),
+                    channelStats.getPassed(),
+                    channelStats.getDropped(),
+                    channelStats.getCollapsed(),
+                    channelStats.getDelayed()
+                )
+            );
+        }
+
+        sender.addChatMessage(new ChatComponentText(sb.toString()));
+    }
+}
@@ -15,10 +15,10 @@
 package chikachi.discord.command;
 
 import chikachi.discord.DiscordCommandSender;
+import chikachi.discord.PlayerRegistry;
 import com.google.common.base.Joiner;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.entity.player.EntityPlayerMP;
-import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.ChatComponentText;
 
 import java.util.ArrayList;
@@ -30,21 +30,14 @@ class SubCommandOnline {
 
         List<String> playerNames = new ArrayList<>();
 
-        //noinspection unchecked
-        List<EntityPlayerMP> players = new ArrayList<>();
-        //noinspection unchecked
-        MinecraftServer.getServer().getConfigurationManager().playerEntityList
-            .stream()
-            .filter(EntityPlayerMP.class::isInstance)
-            .forEach(player -> players.add((EntityPlayerMP) player));
-
-        for (EntityPlayerMP player : players) {
+        for (EntityPlayerMP player : PlayerRegistry.getInstance().getPlayers()) {
             String playerName = player.getDisplayName();
             if (playerName.startsWith("@")) {
                 continue;
             }
             playerNames.add(playerName);
         }
+        playerNames.sort(String.CASE_INSENSITIVE_ORDER);
 
         int playersOnline = playerNames.size();
         if (playersOnline == 0) {
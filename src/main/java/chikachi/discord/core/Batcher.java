@@ -19,7 +19,12 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
 
 /**
  * Group together multiple items over a period of time, into a single List of items and call a Consumer function.
@@ -27,21 +32,42 @@ import java.util.function.Consumer;
  *
  * DiscordIntegration will use it to batch up messages that are to be sent out, within a very small time window, so that
  * we can send multiple near-simultaneous chat messages as just one call to the Discord API (the messages joined by \n).
+ *
+ * Items are flushed when there has been a pause of `delayMs`, when the oldest item has waited `maxLatencyMs` even if
+ * items keep coming, or right away when `maxItems` items or `maxWeight` weight (e.g. characters) are queued. A batch
+ * passed to the Consumer never weighs more than `maxWeight`, unless it's a single item.
+ *
+ * Any number of threads can queue items without blocking each other. There is at most one timer scheduled at a time;
+ * it's rescheduled when it fires early, instead of on every item.
  */
 public class Batcher<T> {
+    private static final long IDLE = Long.MIN_VALUE;
+
     private final Consumer<List<T>> consumer;
-    private final long delayMs;
-    private final int largeQueueSize;
+    private final long delayNanos;
+    private final long maxLatencyNanos;
+    private final int maxItems;
+    private final long maxWeight;
+    private final ToIntFunction<T> weigher;
     private final ScheduledExecutorService executor;
+    private final LongSupplier clock;
 
-    private ScheduledFuture<?> nextFlush;
-    private final BlockingQueue<T> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong weight = new AtomicLong();
+    /**
+     * When the oldest item waiting was queued, or IDLE if nothing has been queued since the last flush
+     */
+    private final AtomicLong firstQueuedAt = new AtomicLong(IDLE);
+    private volatile long lastQueuedAt;
+    private final AtomicBoolean timerArmed = new AtomicBoolean();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
 
     /**
      * Constructor.
      *
      * Note that this creates a new single thread executor, so you should treat the Batcher as a singleton wherever
-     * possible, and definitely don't create a lot of them.
+     * possible, and definitely don't create a lot of them. To batch per channel or per user, use a {@link KeyedBatcher}.
      *
      * @param consumer       The list of queued messages will be passed to this Consumer after the delay.
      * @param delayMs        Wait for a pause this many milliseconds long, before calling the Consumer.
@@ -58,40 +84,148 @@ public class Batcher<T> {
 
     /**
      * This constructor takes an executor object, so you could use it to share an executor across multiple Batchers.
+     * Items are never held longer than four times the delay, and there is no weight limit.
      *
      * @see Batcher#Batcher(Consumer, long, int, String)
      */
     public Batcher(Consumer<List<T>> consumer, long delayMs, int largeQueueSize, ScheduledExecutorService executor) {
+        this(consumer, delayMs, delayMs * 4, largeQueueSize, Long.MAX_VALUE, item -> 0, executor, System::nanoTime);
+    }
+
+    /**
+     * @param consumer     The list of queued messages will be passed to this Consumer, on the executor.
+     * @param delayMs      Wait for a pause this many milliseconds long, before calling the Consumer.
+     * @param maxLatencyMs Call the Consumer once the oldest item waited this many milliseconds, pause or not.
+     * @param maxItems     If this many items are queued up, then we'll call the Consumer ASAP.
+     * @param maxWeight    If the queued items weigh this much, then we'll call the Consumer ASAP, with the items split
+     *                     into lists weighing at most this much.
+     * @param weigher      Weight of an item, e.g. the characters it adds to the joined message.
+     * @param executor     Runs the timer and the Consumer, can be shared across Batchers.
+     * @param clock        Current time in nanoseconds, System::nanoTime outside of tests and benchmarks.
+     */
+    public Batcher(Consumer<List<T>> consumer, long delayMs, long maxLatencyMs, int maxItems, long maxWeight, ToIntFunction<T> weigher, ScheduledExecutorService executor, LongSupplier clock) {
         this.consumer = consumer;
-        this.delayMs = delayMs;
-        this.largeQueueSize = largeQueueSize;
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(delayMs, 0));
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(maxLatencyMs, delayMs));
+        this.maxItems = Math.max(maxItems, 1);
+        this.maxWeight = Math.max(maxWeight, 1);
+        this.weigher = weigher;
         this.executor = executor;
+        this.clock = clock;
+        this.lastQueuedAt = clock.getAsLong();
     }
 
     /**
      * Queue up an item. If the time since the last item is shorter than `delayMs`, then this effectively resets the
-     * timer, so that another `delayMs` ms must pass with no more queued items before the Consumer is called. But if
-     * adding this item to the queue causes the queue to reach `largeQueueSize` then the Consumer will be called ASAP.
+     * timer, so that another `delayMs` ms must pass with no more queued items before the Consumer is called, but never
+     * later than `maxLatencyMs` after the oldest queued item. If adding this item reaches `maxItems` or `maxWeight`
+     * then the Consumer will be called ASAP.
      *
      * @param item The item to be queued.
      */
     public void queue(T item) {
-        if (nextFlush != null) {
-            nextFlush.cancel(false);
-        }
+        long now = this.clock.getAsLong();
+        int itemWeight = this.weigher.applyAsInt(item);
+
+        this.lastQueuedAt = now;
+        this.firstQueuedAt.compareAndSet(IDLE, now);
         this.queue.add(item);
-        // If the queue has gotten large, then queue up the next flush just 1 ms in the future. This will give some
-        // wiggle room for any code that is calling queue in a tight loop, but will send the messages the instant there
-        // is a tiny pause.
-        long delay = this.queue.size() >= largeQueueSize ? 1 : delayMs;
-        nextFlush = executor.schedule(this::flushQueue, delay, TimeUnit.MILLISECONDS);
+        int queuedItems = this.size.incrementAndGet();
+        long queuedWeight = this.weight.addAndGet(itemWeight);
+
+        if (queuedItems >= this.maxItems || queuedWeight >= this.maxWeight) {
+            if (this.flushRequested.compareAndSet(false, true)) {
+                this.executor.execute(this::onFlushRequested);
+            }
+        } else if (this.timerArmed.compareAndSet(false, true)) {
+            this.executor.schedule(this::onTimer, this.delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return Items waiting to be passed to the Consumer
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * @param time Time in nanoseconds from the clock
+     * @return true, if nothing is waiting and nothing was queued since the time
+     */
+    boolean isIdleSince(long time) {
+        return this.size.get() == 0 && this.lastQueuedAt - time < 0;
     }
 
-    private void flushQueue() {
-        List<T> messages = new ArrayList<>(this.queue.size());
-        this.queue.drainTo(messages);
-        if (!messages.isEmpty()) {
-            consumer.accept(messages);
+    private void onFlushRequested() {
+        // Cleared first, so items queued during the flush can request another one
+        this.flushRequested.set(false);
+        flush();
+    }
+
+    private void onTimer() {
+        long now = this.clock.getAsLong();
+        long first = this.firstQueuedAt.get();
+
+        if (this.size.get() > 0 && first != IDLE) {
+            long due = Math.min(this.lastQueuedAt + this.delayNanos, first + this.maxLatencyNanos);
+            if (now - due < 0) {
+                // Items came in since the timer was scheduled, stay armed until the pause is long enough
+                this.executor.schedule(this::onTimer, due - now, TimeUnit.NANOSECONDS);
+                return;
+            }
+        }
+
+        try {
+            flush();
+        } finally {
+            this.timerArmed.set(false);
+            // An item queued while the timer was still armed didn't schedule one
+            if (this.size.get() > 0 && this.timerArmed.compareAndSet(false, true)) {
+                this.executor.schedule(this::onTimer, this.delayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Only the executor flushes, producers never wait for this lock.
+     */
+    private synchronized void flush() {
+        this.firstQueuedAt.set(IDLE);
+
+        List<T> batch = new ArrayList<>();
+        long batchWeight = 0;
+
+        T item;
+        while ((item = this.queue.poll()) != null) {
+            int itemWeight = this.weigher.applyAsInt(item);
+            this.size.decrementAndGet();
+            this.weight.addAndGet(-itemWeight);
+
+            if (!batch.isEmpty() && batchWeight + itemWeight > this.maxWeight) {
+                accept(batch);
+                batch = new ArrayList<>();
+                batchWeight = 0;
+            }
+
+            batch.add(item);
+            batchWeight += itemWeight;
+        }
+
+        if (!batch.isEmpty()) {
+            accept(batch);
+        }
+    }
+
+    /**
+     * A batch the Consumer fails on is lost, the batches after it are still passed on.
+     */
+    private void accept(List<T> batch) {
+        try {
+            this.consumer.accept(batch);
+        } catch (Exception e) {
+            DiscordIntegrationLogger.Log("Failed to pass on a batch of " + batch.size() + " items", true);
+            e.printStackTrace();
         }
     }
 }
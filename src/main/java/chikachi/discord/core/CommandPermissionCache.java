@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import chikachi.discord.core.config.Configuration;
+import chikachi.discord.core.config.discord.CommandPermissions;
+import net.dv8tion.jda.core.entities.*;
+import net.dv8tion.jda.core.events.guild.GuildJoinEvent;
+import net.dv8tion.jda.core.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.core.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.core.events.guild.member.GuildMemberLeaveEvent;
+import net.dv8tion.jda.core.events.guild.member.GuildMemberRoleAddEvent;
+import net.dv8tion.jda.core.events.guild.member.GuildMemberRoleRemoveEvent;
+import net.dv8tion.jda.core.events.role.RoleDeleteEvent;
+import net.dv8tion.jda.core.events.role.update.RoleUpdateNameEvent;
+import net.dv8tion.jda.core.events.user.UserNameUpdateEvent;
+import net.dv8tion.jda.core.hooks.ListenerAdapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Whether a user may execute a Discord command, remembered per user, command and guild.
+ *
+ * Deciding means collecting the user's roles, from every guild for private messages. Decisions of a user are forgotten
+ * when the user's roles, name or guild membership change, and all of them when a role is renamed or deleted, or the
+ * config is loaded again.
+ */
+public class CommandPermissionCache extends ListenerAdapter {
+    private static final int MAX_USERS = 10000;
+    private static final long PRIVATE = 0;
+
+    private static CommandPermissionCache instance;
+
+    /**
+     * User id -> decisions of the user
+     */
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Decision, Boolean>> decisions = new ConcurrentHashMap<>();
+
+    private CommandPermissionCache() {
+    }
+
+    public static CommandPermissionCache getInstance() {
+        if (instance == null) {
+            instance = new CommandPermissionCache();
+        }
+
+        return instance;
+    }
+
+    /**
+     * @param permissions Compiled permissions of the command
+     * @param user        User executing the command
+     * @param channel     Channel the command was sent in
+     */
+    public boolean hasPermission(CommandPermissions permissions, User user, MessageChannel channel) {
+        if (permissions.allowsUser(user)) {
+            return true;
+        }
+
+        if (!permissions.hasRoles()) {
+            return false;
+        }
+
+        long scope;
+        if (channel instanceof TextChannel) {
+            scope = ((TextChannel) channel).getGuild().getIdLong();
+        } else if (channel instanceof PrivateChannel) {
+            scope = PRIVATE;
+        } else {
+            return false;
+        }
+
+        if (this.decisions.size() > MAX_USERS) {
+            this.decisions.clear();
+        }
+
+        return this.decisions
+            .computeIfAbsent(user.getIdLong(), id -> new ConcurrentHashMap<>())
+            .computeIfAbsent(new Decision(permissions, scope), decision -> permissions.allowsRoles(getRoles(user, channel)));
+    }
+
+    private static List<Role> getRoles(User user, MessageChannel channel) {
+        if (channel instanceof TextChannel) {
+            Member member = ((TextChannel) channel).getGuild().getMember(user);
+            return member != null ? member.getRoles() : Collections.emptyList();
+        }
+
+        if (!Configuration.getConfig().discord.channels.generic.allowDMCommands) {
+            return Collections.emptyList();
+        }
+
+        List<Role> roles = new ArrayList<>();
+        for (Guild guild : user.getMutualGuilds()) {
+            Member member = guild.getMember(user);
+            if (member != null) {
+                roles.addAll(member.getRoles());
+            }
+        }
+        return roles;
+    }
+
+    /**
+     * Forget every decision, for example after the config was loaded again.
+     */
+    public void clear() {
+        this.decisions.clear();
+    }
+
+    public void invalidate(long userId) {
+        this.decisions.remove(userId);
+    }
+
+    @Override
+    public void onGuildMemberRoleAdd(GuildMemberRoleAddEvent event) {
+        invalidate(event.getUser().getIdLong());
+    }
+
+    @Override
+    public void onGuildMemberRoleRemove(GuildMemberRoleRemoveEvent event) {
+        invalidate(event.getUser().getIdLong());
+    }
+
+    @Override
+    public void onGuildMemberJoin(GuildMemberJoinEvent event) {
+        invalidate(event.getUser().getIdLong());
+    }
+
+    @Override
+    public void onGuildMemberLeave(GuildMemberLeaveEvent event) {
+        invalidate(event.getUser().getIdLong());
+    }
+
+    @Override
+    public void onUserNameUpdate(UserNameUpdateEvent event) {
+        invalidate(event.getUser().getIdLong());
+    }
+
+    @Override
+    public void onRoleUpdateName(RoleUpdateNameEvent event) {
+        clear();
+    }
+
+    @Override
+    public void onRoleDelete(RoleDeleteEvent event) {
+        clear();
+    }
+
+    @Override
+    public void onGuildJoin(GuildJoinEvent event) {
+        clear();
+    }
+
+    @Override
+    public void onGuildLeave(GuildLeaveEvent event) {
+        clear();
+    }
+
+    private static final class Decision {
+        private final CommandPermissions permissions;
+        private final long scope;
+
+        Decision(CommandPermissions permissions, long scope) {
+            this.permissions = permissions;
+            this.scope = scope;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Decision)) {
+                return false;
+            }
+            Decision decision = (Decision) o;
+            return this.permissions == decision.permissions && this.scope == decision.scope;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.permissions) + Long.hashCode(this.scope);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A Minecraft command run for a Discord command, like "tp {ARG_1} {ARG_2}", split into literal text and argument
+ * placeholders once.
+ *
+ * Placeholders are case insensitive:
+ * {ARG_n} is the n-th argument,
+ * {ARGS} is all arguments,
+ * {ARGS_n+} is the n-th and all following arguments,
+ * {ARGS_n-m} is the n-th to the m-th argument.
+ * Missing arguments are left out. Arguments are inserted as they are, and never searched for placeholders.
+ */
+public final class CommandTemplate {
+    private static final int LITERAL = -1;
+
+    private final String source;
+    private final String[] literals;
+    /**
+     * Per segment, LITERAL or the index of the first argument
+     */
+    private final int[] from;
+    /**
+     * Per segment, the index after the last argument
+     */
+    private final int[] to;
+
+    private CommandTemplate(String source, String[] literals, int[] from, int[] to) {
+        this.source = source;
+        this.literals = literals;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static CommandTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<int[]> ranges = new ArrayList<>();
+
+        if (source != null) {
+            int literalStart = 0;
+            int i = source.indexOf('{');
+            while (i >= 0) {
+                int end = source.indexOf('}', i + 1);
+                if (end < 0) {
+                    break;
+                }
+
+                int[] range = parsePlaceholder(source.substring(i + 1, end));
+                if (range == null) {
+                    i = source.indexOf('{', i + 1);
+                    continue;
+                }
+
+                if (literalStart < i) {
+                    literals.add(source.substring(literalStart, i));
+                    ranges.add(null);
+                }
+                literals.add(null);
+                ranges.add(range);
+
+                literalStart = end + 1;
+                i = source.indexOf('{', literalStart);
+            }
+
+            if (literalStart < source.length()) {
+                literals.add(source.substring(literalStart));
+                ranges.add(null);
+            }
+        }
+
+        int[] from = new int[ranges.size()];
+        int[] to = new int[ranges.size()];
+        for (int i = 0; i < from.length; i++) {
+            int[] range = ranges.get(i);
+            from[i] = range == null ? LITERAL : range[0];
+            to[i] = range == null ? LITERAL : range[1];
+        }
+
+        return new CommandTemplate(source, literals.toArray(new String[0]), from, to);
+    }
+
+    /**
+     * @param name Placeholder without braces
+     * @return Index of the first argument and the index after the last one, or null if it isn't an argument placeholder
+     */
+    private static int[] parsePlaceholder(String name) {
+        String upper = name.toUpperCase(Locale.ROOT);
+
+        if (upper.equals("ARGS")) {
+            return new int[]{0, Integer.MAX_VALUE};
+        }
+
+        if (upper.startsWith("ARG_")) {
+            int n = parseNumber(upper, 4, upper.length());
+            if (n < 0) {
+                return null;
+            }
+            // Like {ARG_0}, {ARG_01} never matched an argument
+            return upper.charAt(4) == '0' ? new int[]{0, 0} : new int[]{n - 1, n};
+        }
+
+        if (upper.startsWith("ARGS_")) {
+            if (upper.endsWith("+")) {
+                int n = parseNumber(upper, 5, upper.length() - 1);
+                if (n < 0) {
+                    return null;
+                }
+                return new int[]{Math.max(n - 1, 0), Integer.MAX_VALUE};
+            }
+
+            int dash = upper.indexOf('-', 5);
+            if (dash < 0) {
+                return null;
+            }
+            int n = parseNumber(upper, 5, dash);
+            int m = parseNumber(upper, dash + 1, upper.length());
+            if (n < 0 || m < 0) {
+                return null;
+            }
+            return new int[]{Math.max(n - 1, 0), Math.max(m, n - 1)};
+        }
+
+        return null;
+    }
+
+    /**
+     * @return The number, capped at Integer.MAX_VALUE, or -1 if the text isn't a number
+     */
+    private static int parseNumber(String text, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+
+        long number = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = Math.min(number * 10 + (c - '0'), Integer.MAX_VALUE);
+        }
+        return (int) number;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return The command with the placeholders replaced, without leading and trailing whitespace
+     */
+    public String render(List<String> args) {
+        StringBuilder sb = new StringBuilder(this.source == null ? 16 : this.source.length() + 32);
+        int argsCount = args.size();
+
+        for (int i = 0; i < this.literals.length; i++) {
+            if (this.from[i] == LITERAL) {
+                sb.append(this.literals[i]);
+                continue;
+            }
+
+            int end = Math.min(this.to[i], argsCount);
+            for (int arg = this.from[i]; arg < end; arg++) {
+                if (arg > this.from[i]) {
+                    sb.append(' ');
+                }
+                sb.append(args.get(arg));
+            }
+        }
+
+        return sb.toString().trim();
+    }
+}
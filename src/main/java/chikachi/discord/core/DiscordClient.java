@@ -15,8 +15,11 @@
 package chikachi.discord.core;
 
 import chikachi.discord.core.config.Configuration;
+import chikachi.discord.core.config.discord.DiscordChannelConfig;
+import chikachi.discord.core.config.discord.DiscordConfig;
 import chikachi.discord.core.config.minecraft.MinecraftConfig;
 import chikachi.discord.core.config.types.MessageConfig;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import net.dv8tion.jda.core.AccountType;
 import net.dv8tion.jda.core.JDA;
 import net.dv8tion.jda.core.JDABuilder;
@@ -30,11 +33,23 @@ import net.dv8tion.jda.core.hooks.ListenerAdapter;
 
 import javax.security.auth.login.LoginException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class DiscordClient extends ListenerAdapter {
     private static DiscordClient instance;
+    private final ScheduledExecutorService batchExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+            .setNameFormat(CoreConstants.MODNAME + " Batcher")
+            .setDaemon(true)
+            .build()
+    );
+    private volatile KeyedBatcher<Long, OutboundMessage> channelBatcher;
+    private final GuildMemberIndex memberIndex = new GuildMemberIndex();
     private ArrayList<EventListener> eventListeners = new ArrayList<>();
     private boolean isReady = false;
     private JDA jda;
@@ -95,7 +110,10 @@ public class DiscordClient extends ListenerAdapter {
                 .setToken(token)
                 .setAudioEnabled(false)
                 .setBulkDeleteSplittingEnabled(false)
-                .addEventListener(this);
+                .addEventListener(this)
+                .addEventListener(this.memberIndex)
+                .addEventListener(PlayerIdentityCache.getInstance())
+                .addEventListener(CommandPermissionCache.getInstance());
 
             for (EventListener eventListener : this.eventListeners) {
                 builder.addEventListener(eventListener);
@@ -172,6 +190,10 @@ public class DiscordClient extends ListenerAdapter {
         return this.jda;
     }
 
+    public GuildMemberIndex getMemberIndex() {
+        return this.memberIndex;
+    }
+
     public SelfUser getSelf() {
         if (this.jda == null) {
             return null;
@@ -192,16 +214,27 @@ public class DiscordClient extends ListenerAdapter {
         broadcast(new Message(message), channels);
     }
 
-    public void broadcast(Message message, Long... channels) {
-        broadcast(message, Arrays.asList(channels));
+    public void broadcast(Message message, List<Long> channels) {
+        if (channels == null || channels.size() == 0) {
+            return;
+        }
+
+        long[] channelIds = new long[channels.size()];
+        for (int i = 0; i < channelIds.length; i++) {
+            channelIds[i] = channels.get(i);
+        }
+        broadcast(message, channelIds);
     }
 
-    public void broadcast(Message message, List<Long> channels) {
-        if (channels == null || channels.size() == 0 || this.jda == null || (!this.isReady && this.jda.getStatus() != JDA.Status.CONNECTED)) {
+    public void broadcast(Message message, long... channels) {
+        if (channels == null || channels.length == 0 || this.jda == null || (!this.isReady && this.jda.getStatus() != JDA.Status.CONNECTED)) {
             return;
         }
 
-        for (Long channelId : channels) {
+        DiscordConfig discordConfig = Configuration.getConfig().discord;
+        boolean batching = discordConfig.batchMessages;
+
+        for (long channelId : channels) {
             TextChannel channel = this.jda.getTextChannelById(channelId);
             if (channel == null) {
                 DiscordIntegrationLogger.Log(
@@ -222,24 +255,171 @@ public class DiscordClient extends ListenerAdapter {
                     continue;
                 }
 
-                if (Configuration.getConfig().discord.channels.channels.containsKey(channelId)) {
-                    if (Configuration.getConfig().discord.channels.channels.get(channelId).webhook.trim().length() > 0) {
-                        WebhookMessage webhookMessage = message.toWebhook(channel);
-                        if (webhookMessage.queue(this.jda, channelId)) {
+                WebhookTarget webhook = getWebhookTarget(channelId);
+                if (webhook != null) {
+                    WebhookMessage webhookMessage = message.toWebhook(channel);
+                    if (batching) {
+                        if (webhookMessage.hasContent()) {
+                            getChannelBatcher().queue(channelId, new OutboundMessage(webhookMessage));
                             continue;
                         }
+                    } else if (webhookMessage.queue(this.jda, webhook)) {
+                        continue;
                     }
                 }
 
                 String text = message.getFormattedTextDiscord(channel);
 
-                if (text.length() > 2000) {
-                    text = text.substring(0, 1997) + "...";
+                if (batching) {
+                    getChannelBatcher().queue(channelId, new OutboundMessage(text));
+                    continue;
                 }
 
-                channel.sendMessage(text).queue();
+                sendText(channel, text);
+            }
+        }
+    }
+
+    /**
+     * Send a message to a channel right away, without waiting in the channel's batcher.
+     *
+     * @return Completes when Discord accepted every part of the message, or exceptionally if it couldn't be sent
+     */
+    public CompletableFuture<Void> send(Message message, long channelId) {
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+
+        if (!isConnected()) {
+            failed.completeExceptionally(new IllegalStateException("Not connected to Discord"));
+            return failed;
+        }
+
+        TextChannel channel = this.jda.getTextChannelById(channelId);
+        if (channel == null) {
+            failed.completeExceptionally(new IllegalArgumentException("Could not find channel " + channelId));
+            return failed;
+        }
+
+        if (!channel.canTalk()) {
+            failed.completeExceptionally(new IllegalStateException("Missing permission to write in channel " + channel.getName()));
+            return failed;
+        }
+
+        WebhookTarget webhook = getWebhookTarget(channelId);
+        if (webhook != null) {
+            CompletableFuture<Void> sent = message.toWebhook(channel).submit(this.jda, webhook);
+            if (sent != null) {
+                return sent;
             }
         }
+
+        List<String> chunks = MessageSplitter.split(message.getFormattedTextDiscord(channel));
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks.size()];
+        for (int i = 0; i < futures.length; i++) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            channel.sendMessage(chunks.get(i)).queue(sentMessage -> future.complete(null), future::completeExceptionally);
+            futures[i] = future;
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    private WebhookTarget getWebhookTarget(long channelId) {
+        DiscordChannelConfig channelConfig = Configuration.getConfig().discord.channels.channels.get(channelId);
+        return channelConfig != null ? channelConfig.getWebhookTarget() : null;
+    }
+
+    private synchronized KeyedBatcher<Long, OutboundMessage> getChannelBatcher() {
+        if (this.channelBatcher == null) {
+            DiscordConfig discordConfig = Configuration.getConfig().discord;
+            this.channelBatcher = new KeyedBatcher<>(
+                this::sendBatch,
+                discordConfig.batchDelayMs,
+                discordConfig.batchMaxDelayMs,
+                20,
+                MessageSplitter.MAX_LENGTH,
+                // Joined with a newline
+                message -> message.getContent().length() + 1,
+                60000,
+                this.batchExecutor,
+                System::nanoTime
+            );
+        }
+        return this.channelBatcher;
+    }
+
+    /**
+     * The batch delays might have changed, batch with new ones from now on. Messages already batched are still sent.
+     */
+    public synchronized void onConfigLoaded() {
+        if (this.channelBatcher != null) {
+            this.channelBatcher.close();
+            this.channelBatcher = null;
+        }
+    }
+
+    /**
+     * @return Channel id -> messages waiting to be sent, for channels that had messages batched recently
+     */
+    public Map<Long, Integer> getBatchQueueDepths() {
+        KeyedBatcher<Long, OutboundMessage> channelBatcher = this.channelBatcher;
+        return channelBatcher != null ? channelBatcher.getQueueDepths() : Collections.emptyMap();
+    }
+
+    /**
+     * Batches and sends everything queued up on one thread, share it instead of creating executors
+     */
+    public ScheduledExecutorService getBatchExecutor() {
+        return this.batchExecutor;
+    }
+
+    /**
+     * Send the messages queued up for a channel, joining consecutive messages from the same sender into as few
+     * messages as the length limit allows. The order of the lines is kept.
+     */
+    private void sendBatch(Long channelId, List<OutboundMessage> messages) {
+        if (this.jda == null) {
+            return;
+        }
+
+        TextChannel channel = this.jda.getTextChannelById(channelId);
+        if (channel == null) {
+            return;
+        }
+
+        WebhookTarget webhook = getWebhookTarget(channelId);
+        OutboundMessage sender = null;
+        StringBuilder content = new StringBuilder();
+
+        for (OutboundMessage message : messages) {
+            if (sender != null && (!sender.isSameSender(message) || content.length() + 1 + message.getContent().length() > MessageSplitter.MAX_LENGTH)) {
+                sendJoined(channel, webhook, sender, content.toString());
+                content.setLength(0);
+            }
+
+            if (content.length() > 0) {
+                content.append('\n');
+            }
+            content.append(message.getContent());
+            sender = message;
+        }
+
+        if (sender != null) {
+            sendJoined(channel, webhook, sender, content.toString());
+        }
+    }
+
+    private void sendJoined(TextChannel channel, WebhookTarget webhook, OutboundMessage sender, String content) {
+        if (sender.isWebhook() && sender.toWebhook(content).queue(this.jda, webhook)) {
+            return;
+        }
+
+        sendText(channel, content);
+    }
+
+    private void sendText(TextChannel channel, String text) {
+        // JDA sends requests to the same channel in the order they were queued
+        for (String chunk : MessageSplitter.split(text)) {
+            channel.sendMessage(chunk).queue();
+        }
     }
 
     public void setDiscordPresencePlayerCount(String[] players) {
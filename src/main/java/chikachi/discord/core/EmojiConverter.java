@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import com.vdurmont.emoji.Emoji;
+import com.vdurmont.emoji.EmojiManager;
+import com.vdurmont.emoji.EmojiParser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Skips emoji-java for text that can't contain anything it would convert.
+ *
+ * EmojiParser.parseToUnicode replaces :aliases: and goes through every known emoji looking for HTML entities, even if
+ * the text has no colon or ampersand. EmojiParser.parseToAliases looks for emojis, which all contain a character from
+ * U+2000 up (or are © or ®). Text without those characters is returned as it is.
+ *
+ * Aliases in the alias table (the ones the emote tables translate to) are replaced without asking emoji-java at all.
+ */
+public final class EmojiConverter {
+    /**
+     * Replaced when the config is loaded, the table is built on first use
+     */
+    private static volatile AliasTable aliasTable = new AliasTable(null);
+
+    private EmojiConverter() {
+    }
+
+    public static String toUnicode(String text) {
+        if (text == null || text.indexOf(':') < 0 && text.indexOf('&') < 0) {
+            return text;
+        }
+
+        HashMap<String, String> aliases = aliasTable.get();
+        if (aliases != null && text.indexOf('&') < 0) {
+            String result = replaceAliases(text, aliases);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        return EmojiParser.parseToUnicode(text);
+    }
+
+    public static String toAliases(String text) {
+        if (text == null || !mayContainEmoji(text)) {
+            return text;
+        }
+
+        return EmojiParser.parseToAliases(text, EmojiParser.FitzpatrickAction.REMOVE);
+    }
+
+    /**
+     * Use different aliases for the alias table, e.g. after the config was loaded.
+     *
+     * @param aliases Aliases to put in the table, with or without colons. Null to not use an alias table.
+     */
+    public static void setAliases(Collection<String> aliases) {
+        aliasTable = new AliasTable(aliases != null ? new ArrayList<>(aliases) : null);
+    }
+
+    /**
+     * Load emoji-java's emoji database and build the alias table.
+     */
+    public static void warmUp() {
+        EmojiManager.getAll();
+        aliasTable.get();
+    }
+
+    private static boolean mayContainEmoji(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '\u2000' || c == '\u00a9' || c == '\u00ae') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String trimColons(String alias) {
+        int start = alias.startsWith(":") ? 1 : 0;
+        int end = alias.endsWith(":") && alias.length() > start ? alias.length() - 1 : alias.length();
+        return alias.substring(start, end);
+    }
+
+    /**
+     * Replace :aliases: the same way EmojiParser.parseToUnicode does.
+     *
+     * @return The text with the aliases replaced, or null if the text has an alias candidate that isn't in the table
+     */
+    private static String replaceAliases(String text, HashMap<String, String> aliases) {
+        List<String> candidates = new ArrayList<>();
+
+        int length = text.length();
+        int i = text.indexOf(':');
+        while (i >= 0 && i < length - 1) {
+            int start = i + 1;
+            int end = start;
+            if (end < length && text.charAt(end) == '+') {
+                end++;
+            }
+            while (end < length && isAliasChar(text.charAt(end))) {
+                end++;
+            }
+
+            if (end < length && end > start && text.charAt(end) == ':' && (text.charAt(start) != '+' || end > start + 1)) {
+                String candidate = text.substring(start, end);
+                if (!aliases.containsKey(candidate)) {
+                    return null;
+                }
+                candidates.add(candidate);
+            }
+
+            // The closing colon can also open the next candidate
+            i = text.indexOf(':', Math.max(end, start));
+        }
+
+        String result = text;
+        for (String candidate : candidates) {
+            result = result.replace(":" + candidate + ":", aliases.get(candidate));
+        }
+        return result;
+    }
+
+    private static boolean isAliasChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '|' || c == '-';
+    }
+
+    private static final class AliasTable {
+        private final List<String> aliases;
+        private volatile HashMap<String, String> table;
+
+        private AliasTable(List<String> aliases) {
+            this.aliases = aliases;
+        }
+
+        /**
+         * @return Alias without colons -> emoji, or null if there is no alias table
+         */
+        private HashMap<String, String> get() {
+            if (this.aliases == null) {
+                return null;
+            }
+
+            HashMap<String, String> table = this.table;
+            if (table == null) {
+                // Built twice at worst, by threads racing for it
+                table = new HashMap<>();
+                for (String alias : this.aliases) {
+                    if (alias == null) {
+                        continue;
+                    }
+
+                    Emoji emoji = EmojiManager.getForAlias(alias);
+                    if (emoji != null) {
+                        table.put(trimColons(alias), emoji.getUnicode());
+                    }
+                }
+                this.table = table;
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Replaces emoticons like ":)" using a trie built once from an emote table.
+ *
+ * At every position the longest emoticon is used. An emoticon that starts or ends with a letter or digit only matches
+ * if it isn't part of a longer word, so "xD" is replaced but "foxDen" isn't, while ":)" is also found next to
+ * punctuation as in "hi:)". Text without any character an emoticon can start with is returned as it is.
+ */
+public final class EmoteTranslator {
+    public static final EmoteTranslator EMPTY = new EmoteTranslator(new Node(), new boolean[128], new char[0]);
+
+    private final Node root;
+    private final boolean[] asciiStarts;
+    private final char[] otherStarts;
+
+    private EmoteTranslator(Node root, boolean[] asciiStarts, char[] otherStarts) {
+        this.root = root;
+        this.asciiStarts = asciiStarts;
+        this.otherStarts = otherStarts;
+    }
+
+    public static EmoteTranslator compile(Map<String, String> emotes) {
+        if (emotes == null || emotes.isEmpty()) {
+            return EMPTY;
+        }
+
+        Node root = new Node();
+        boolean[] asciiStarts = new boolean[128];
+        StringBuilder otherStarts = new StringBuilder();
+
+        for (Map.Entry<String, String> entry : emotes.entrySet()) {
+            String emote = entry.getKey();
+            if (emote == null || emote.length() == 0 || entry.getValue() == null) {
+                continue;
+            }
+
+            Node node = root;
+            for (int i = 0; i < emote.length(); i++) {
+                node = node.getOrAddChild(emote.charAt(i));
+            }
+            node.replacement = entry.getValue();
+
+            char first = emote.charAt(0);
+            if (first < 128) {
+                asciiStarts[first] = true;
+            } else if (otherStarts.indexOf(String.valueOf(first)) < 0) {
+                otherStarts.append(first);
+            }
+        }
+
+        char[] others = otherStarts.toString().toCharArray();
+        Arrays.sort(others);
+        return new EmoteTranslator(root, asciiStarts, others);
+    }
+
+    private boolean canStart(char c) {
+        return c < 128 ? this.asciiStarts[c] : Arrays.binarySearch(this.otherStarts, c) >= 0;
+    }
+
+    public String translate(String text) {
+        if (text == null) {
+            return null;
+        }
+
+        int length = text.length();
+        int i = 0;
+        while (i < length && !canStart(text.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return text;
+        }
+
+        StringBuilder sb = null;
+        int copied = 0;
+
+        for (; i < length; i++) {
+            if (!canStart(text.charAt(i))) {
+                continue;
+            }
+
+            // Longest emoticon starting here that isn't part of a word
+            Node node = this.root;
+            String replacement = null;
+            int end = -1;
+            for (int j = i; j < length; j++) {
+                node = node.getChild(text.charAt(j));
+                if (node == null) {
+                    break;
+                }
+                if (node.replacement != null && isBoundary(text, i, j + 1)) {
+                    replacement = node.replacement;
+                    end = j + 1;
+                }
+            }
+
+            if (replacement == null) {
+                continue;
+            }
+
+            if (sb == null) {
+                sb = new StringBuilder(length + 16);
+            }
+            sb.append(text, copied, i).append(replacement);
+            copied = end;
+            i = end - 1;
+        }
+
+        if (sb == null) {
+            return text;
+        }
+
+        sb.append(text, copied, length);
+        return sb.toString();
+    }
+
+    private static boolean isBoundary(String text, int start, int end) {
+        if (start > 0 && Character.isLetterOrDigit(text.charAt(start)) && Character.isLetterOrDigit(text.charAt(start - 1))) {
+            return false;
+        }
+        return end >= text.length() || !Character.isLetterOrDigit(text.charAt(end - 1)) || !Character.isLetterOrDigit(text.charAt(end));
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private String replacement;
+
+        Node getChild(char c) {
+            char[] keys = this.keys;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return this.children[i];
+                }
+            }
+            return null;
+        }
+
+        Node getOrAddChild(char c) {
+            Node child = getChild(c);
+            if (child == null) {
+                child = new Node();
+                this.keys = Arrays.copyOf(this.keys, this.keys.length + 1);
+                this.children = Arrays.copyOf(this.children, this.children.length + 1);
+                this.keys[this.keys.length - 1] = c;
+                this.children[this.children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+/**
+ * Converts between Minecraft formatting codes and Discord markdown.
+ *
+ * Each conversion walks the text once and keeps whether bold, italic, underline and strikethrough are open in local
+ * variables, so it can be called from any thread at the same time.
+ */
+public final class FormattingTranscoder {
+    private static final char SECTION = '\u00a7';
+
+    private FormattingTranscoder() {
+    }
+
+    /**
+     * Convert other Minecraft formatting to the standard Minecraft formatting, for example &f to §f.
+     * An & right after an @ is left alone.
+     */
+    public static String unify(String content) {
+        if (content == null) {
+            return "";
+        }
+
+        char[] chars = content.toCharArray();
+        StringBuilder sb = null;
+        int copied = 0;
+
+        for (int i = 0; i < chars.length - 1; i++) {
+            if (isFakeCode(chars, i)) {
+                if (sb == null) {
+                    sb = new StringBuilder(chars.length);
+                }
+                sb.append(chars, copied, i - copied).append(SECTION).append(chars[i + 1]);
+                copied = i + 2;
+                i++;
+            }
+        }
+
+        if (sb == null) {
+            return content;
+        }
+
+        sb.append(chars, copied, chars.length - copied);
+        return sb.toString();
+    }
+
+    public static String minecraftToDiscord(String content) {
+        if (content == null) {
+            return "";
+        }
+
+        char[] chars = content.toCharArray();
+        StringBuilder sb = new StringBuilder(chars.length + 16);
+        boolean matched = false;
+        boolean bold = false;
+        boolean italic = false;
+        boolean underline = false;
+        boolean strikethrough = false;
+
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+
+            char code;
+            if (c == SECTION && i + 1 < chars.length && isCode(chars[i + 1])) {
+                code = Character.toLowerCase(chars[i + 1]);
+            } else if (i + 1 < chars.length && isFakeCode(chars, i)) {
+                code = chars[i + 1];
+            } else {
+                sb.append(c);
+                continue;
+            }
+
+            matched = true;
+            i++;
+
+            switch (code) {
+                case 'l':
+                    bold = true;
+                    sb.append("**");
+                    break;
+                case 'o':
+                    italic = true;
+                    sb.append('*');
+                    break;
+                case 'n':
+                    underline = true;
+                    sb.append("__");
+                    break;
+                case 'm':
+                    strikethrough = true;
+                    sb.append("~~");
+                    break;
+                case 'r':
+                    if (bold) {
+                        bold = false;
+                        sb.append("**");
+                    }
+                    if (italic) {
+                        italic = false;
+                        sb.append('*');
+                    }
+                    if (underline) {
+                        underline = false;
+                        sb.append("__");
+                    }
+                    if (strikethrough) {
+                        strikethrough = false;
+                        sb.append("~~");
+                    }
+                    break;
+                default:
+                    // Colors and obfuscated can't be shown in Discord
+                    break;
+            }
+        }
+
+        if (!matched) {
+            return content;
+        }
+
+        if (strikethrough) {
+            sb.append("~~");
+        }
+        if (underline) {
+            sb.append("__");
+        }
+        if (italic) {
+            sb.append('*');
+        }
+        if (bold) {
+            sb.append("**");
+        }
+
+        return collapseStars(sb);
+    }
+
+    public static String discordToMinecraft(String content) {
+        if (content == null) {
+            return "";
+        }
+
+        char[] chars = content.toCharArray();
+        StringBuilder sb = new StringBuilder(chars.length + 16);
+        boolean matched = false;
+        boolean bold = false;
+        boolean italic = false;
+        char lastItalic = 0;
+        boolean underline = false;
+        boolean strikethrough = false;
+
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            boolean doubled = i + 1 < chars.length && chars[i + 1] == c;
+
+            if (c == '*' && doubled) {
+                matched = true;
+                i++;
+                bold = !bold;
+                if (bold) {
+                    sb.append(MinecraftFormattingCodes.BOLD);
+                } else {
+                    appendReset(sb, bold, italic, underline, strikethrough);
+                }
+            } else if (c == '_' && doubled) {
+                matched = true;
+                i++;
+                underline = !underline;
+                if (underline) {
+                    sb.append(MinecraftFormattingCodes.UNDERLINE);
+                } else {
+                    appendReset(sb, bold, italic, underline, strikethrough);
+                }
+            } else if (c == '~' && doubled) {
+                matched = true;
+                i++;
+                strikethrough = !strikethrough;
+                if (strikethrough) {
+                    sb.append(MinecraftFormattingCodes.STRIKETHROUGH);
+                } else {
+                    appendReset(sb, bold, italic, underline, strikethrough);
+                }
+            } else if (c == '*' || c == '_') {
+                matched = true;
+                if (italic && c != lastItalic) {
+                    // Italic was started with the other marker
+                    sb.append(c);
+                    continue;
+                }
+                lastItalic = c;
+                italic = !italic;
+                if (italic) {
+                    sb.append(MinecraftFormattingCodes.ITALIC);
+                } else {
+                    appendReset(sb, bold, italic, underline, strikethrough);
+                }
+            } else {
+                if (c == '`') {
+                    matched = true;
+                }
+                sb.append(c);
+            }
+        }
+
+        if (matched) {
+            // Markers that were never closed are shown as they were written
+            if (strikethrough) {
+                replaceLast(sb, MinecraftFormattingCodes.STRIKETHROUGH.toString(), "~~");
+            }
+            if (underline) {
+                replaceLast(sb, MinecraftFormattingCodes.UNDERLINE.toString(), "__");
+            }
+            if (italic) {
+                replaceLast(sb, MinecraftFormattingCodes.ITALIC.toString(), String.valueOf(lastItalic));
+            }
+            if (bold) {
+                replaceLast(sb, MinecraftFormattingCodes.BOLD.toString(), "**");
+            }
+            content = collapseResets(sb);
+        }
+
+        return unify(content);
+    }
+
+    /**
+     * @return true, if the character is a formatting code, in any case
+     */
+    private static boolean isCode(char c) {
+        return (c >= '0' && c <= '9')
+            || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')
+            || (c >= 'k' && c <= 'o') || (c >= 'K' && c <= 'O')
+            || c == 'r' || c == 'R';
+    }
+
+    /**
+     * @return true, if there is an &amp; formatting code (lowercase only) at the index that isn't right after an @
+     */
+    private static boolean isFakeCode(char[] chars, int index) {
+        if (chars[index] != '&' || (index > 0 && chars[index - 1] == '@')) {
+            return false;
+        }
+
+        char code = chars[index + 1];
+        return isCode(code) && !Character.isUpperCase(code);
+    }
+
+    private static void appendReset(StringBuilder sb, boolean bold, boolean italic, boolean underline, boolean strikethrough) {
+        sb.append(MinecraftFormattingCodes.RESET);
+        if (strikethrough) {
+            sb.append(MinecraftFormattingCodes.STRIKETHROUGH);
+        }
+        if (underline) {
+            sb.append(MinecraftFormattingCodes.UNDERLINE);
+        }
+        if (italic) {
+            sb.append(MinecraftFormattingCodes.ITALIC);
+        }
+        if (bold) {
+            sb.append(MinecraftFormattingCodes.BOLD);
+        }
+    }
+
+    private static void replaceLast(StringBuilder sb, String code, String replacement) {
+        int index = sb.lastIndexOf(code);
+        sb.replace(index, index + code.length(), replacement);
+    }
+
+    /**
+     * Replace every "*****" with "*", left to right.
+     */
+    private static String collapseStars(StringBuilder sb) {
+        if (sb.indexOf("*****") < 0) {
+            return sb.toString();
+        }
+
+        StringBuilder result = new StringBuilder(sb.length());
+        int i = 0;
+        while (i < sb.length()) {
+            if (i + 5 <= sb.length() && sb.charAt(i) == '*' && sb.charAt(i + 1) == '*' && sb.charAt(i + 2) == '*' && sb.charAt(i + 3) == '*' && sb.charAt(i + 4) == '*') {
+                result.append('*');
+                i += 5;
+            } else {
+                result.append(sb.charAt(i++));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Replace every §r followed by other codes and another §r with a single §r, as the codes in between do nothing.
+     */
+    private static String collapseResets(StringBuilder sb) {
+        StringBuilder result = null;
+        int copied = 0;
+        int i = 0;
+
+        while (i + 1 < sb.length()) {
+            if (!isReset(sb, i)) {
+                i++;
+                continue;
+            }
+
+            // Find the last reset in the run of codes following this one, with at least one code in between
+            int end = -1;
+            int j = i + 2;
+            int codes = 0;
+            while (j + 1 < sb.length() && sb.charAt(j) == SECTION && isCode(sb.charAt(j + 1))) {
+                codes++;
+                if (codes > 1 && isReset(sb, j)) {
+                    end = j + 2;
+                }
+                j += 2;
+            }
+
+            if (end < 0) {
+                i++;
+                continue;
+            }
+
+            if (result == null) {
+                result = new StringBuilder(sb.length());
+            }
+            result.append(sb, copied, i).append(MinecraftFormattingCodes.RESET);
+            copied = end;
+            i = end;
+        }
+
+        if (result == null) {
+            return sb.toString();
+        }
+
+        result.append(sb, copied, sb.length());
+        return result.toString();
+    }
+
+    private static boolean isReset(CharSequence text, int index) {
+        return text.charAt(index) == SECTION && (text.charAt(index + 1) == 'r' || text.charAt(index + 1) == 'R');
+    }
+}
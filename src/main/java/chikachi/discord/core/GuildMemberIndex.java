@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import net.dv8tion.jda.core.Permission;
+import net.dv8tion.jda.core.entities.Channel;
+import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.entities.Member;
+import net.dv8tion.jda.core.entities.Role;
+import net.dv8tion.jda.core.events.channel.text.TextChannelDeleteEvent;
+import net.dv8tion.jda.core.events.channel.text.update.TextChannelUpdatePermissionsEvent;
+import net.dv8tion.jda.core.events.guild.GuildJoinEvent;
+import net.dv8tion.jda.core.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.core.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.core.events.guild.member.*;
+import net.dv8tion.jda.core.events.role.RoleCreateEvent;
+import net.dv8tion.jda.core.events.role.RoleDeleteEvent;
+import net.dv8tion.jda.core.events.role.update.RoleUpdateNameEvent;
+import net.dv8tion.jda.core.events.role.update.RoleUpdatePermissionsEvent;
+import net.dv8tion.jda.core.events.user.UserNameUpdateEvent;
+import net.dv8tion.jda.core.hooks.ListenerAdapter;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Case-insensitive name lookup of guild members and roles, for resolving @mentions.
+ *
+ * JDA's getMembersByName and getRolesByName scan every cached member or role. This index maps lowercase user names,
+ * nicknames and role names to ids, and is kept up to date from JDA's member, user and role events. Whether a member
+ * or role can read a channel is cached per channel, and thrown away when roles or channel permissions change.
+ */
+public class GuildMemberIndex extends ListenerAdapter {
+    private final ConcurrentHashMap<Long, GuildIndex> guilds = new ConcurrentHashMap<>();
+
+    /**
+     * @param channel       Channel the mention is sent to
+     * @param name          User name or nickname, any case
+     * @param discriminator Discriminator without the #, or null for any
+     * @return A member with that name that can read the channel, or null if there is none
+     */
+    public Member findMember(Channel channel, String name, String discriminator) {
+        Guild guild = channel.getGuild();
+        GuildIndex index = getIndex(guild);
+        String key = toKey(name);
+
+        Member member = findMember(guild, channel, index, index.memberNames.get(key), discriminator);
+        if (member == null) {
+            member = findMember(guild, channel, index, index.memberNicknames.get(key), discriminator);
+        }
+        return member;
+    }
+
+    /**
+     * @param channel Channel the mention is sent to
+     * @param name    Role name, any case
+     * @return A mentionable role with that name that can read the channel, or null if there is none
+     */
+    public Role findRole(Channel channel, String name) {
+        Guild guild = channel.getGuild();
+        GuildIndex index = getIndex(guild);
+        Set<Long> roleIds = index.roleNames.get(toKey(name));
+
+        if (roleIds == null) {
+            return null;
+        }
+
+        for (Long roleId : roleIds) {
+            Role role = guild.getRoleById(roleId);
+            if (role != null && role.isMentionable() && index.canRead(channel, roleId, role)) {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    private Member findMember(Guild guild, Channel channel, GuildIndex index, Set<Long> memberIds, String discriminator) {
+        if (memberIds == null) {
+            return null;
+        }
+
+        for (Long memberId : memberIds) {
+            Member member = guild.getMemberById(memberId);
+            if (member == null) {
+                continue;
+            }
+            if (discriminator != null && !member.getUser().getDiscriminator().equalsIgnoreCase(discriminator)) {
+                continue;
+            }
+            if (index.canRead(channel, memberId, member)) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    private GuildIndex getIndex(Guild guild) {
+        GuildIndex index = this.guilds.get(guild.getIdLong());
+        if (index == null) {
+            // Guild became available before we were listening, index it now
+            index = this.guilds.computeIfAbsent(guild.getIdLong(), id -> new GuildIndex(guild));
+        }
+        return index;
+    }
+
+    private static String toKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static void add(Map<String, Set<Long>> map, String name, long id) {
+        if (name == null) {
+            return;
+        }
+        map.computeIfAbsent(toKey(name), key -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private static void remove(Map<String, Set<Long>> map, String name, long id) {
+        if (name == null) {
+            return;
+        }
+        map.computeIfPresent(toKey(name), (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    @Override
+    public void onGuildReady(GuildReadyEvent event) {
+        this.guilds.put(event.getGuild().getIdLong(), new GuildIndex(event.getGuild()));
+    }
+
+    @Override
+    public void onGuildJoin(GuildJoinEvent event) {
+        this.guilds.put(event.getGuild().getIdLong(), new GuildIndex(event.getGuild()));
+    }
+
+    @Override
+    public void onGuildLeave(GuildLeaveEvent event) {
+        this.guilds.remove(event.getGuild().getIdLong());
+    }
+
+    @Override
+    public void onGuildMemberJoin(GuildMemberJoinEvent event) {
+        GuildIndex index = this.guilds.get(event.getGuild().getIdLong());
+        if (index != null) {
+            index.addMember(event.getMember());
+        }
+    }
+
+    @Override
+    public void onGuildMemberLeave(GuildMemberLeaveEvent event) {
+        GuildIndex index = this.guilds.get(event.getGuild().getIdLong());
+        if (index != null) {
+            index.removeMember(event.getMember());
+        }
+    }
+
+    @Override
+    public void onGuildMemberNickChange(GuildMemberNickChangeEvent event) {
+        GuildIndex index = this.guilds.get(event.getGuild().getIdLong());
+        if (index != null) {
+            long memberId = event.getMember().getUser().getIdLong();
+            remove(index.memberNicknames, event.getPrevNick(), memberId);
+            add(index.memberNicknames, event.getNewNick(), memberId);
+        }
+    }
+
+    @Override
+    public void onGuildMemberRoleAdd(GuildMemberRoleAddEvent event) {
+        GuildIndex index = this.guilds.get(event.getGuild().getIdLong());
+        if (index != null) {
+            index.forgetPermissions(event.getMember().getUser().getIdLong());
+        }
+    }
+
+    @Override
+    public void onGuildMemberRoleRemove(GuildMemberRoleRemoveEvent event) {
+        GuildIndex index = this.guilds.get(event.getGuild().getIdLong());
+        if (index != null) {
+            index.forgetPermissions(event.getMember().getUser().getIdLong());
+        }
+    }
+
+    @Override
+    public void onUserNameUpdate(UserNameUpdateEvent event) {
+        long userId = event.getUser().getIdLong();
+        String newName = event.getUser().getName();
+
+        for (GuildIndex index : this.guilds.values()) {
+            Set<Long> ids = index.memberNames.get(toKey(event.getOldName()));
+            if (ids != null && ids.contains(userId)) {
+                remove(index.memberNames, event.getOldName(), userId);
+                add(index.memberNames, newName, userId);
+            }
+        }
+    }
+
+    @Override
+    public void onRoleCreate(RoleCreateEvent event) {
+        GuildIndex index = this.guilds.get(event.getGuild().getIdLong());
+        if (index != null) {
+            add(index.roleNames, event.getRole().getName(), event.getRole().getIdLong());
+        }
+    }
+
+    @Override
+    public void onRoleDelete(RoleDeleteEvent event) {
+        GuildIndex index = this.guilds.get(event.getGuild().getIdLong());
+        if (index != null) {
+            remove(index.roleNames, event.getRole().getName(), event.getRole().getIdLong());
+            index.permissions.clear();
+        }
+    }
+
+    @Override
+    public void onRoleUpdateName(RoleUpdateNameEvent event) {
+        GuildIndex index = this.guilds.get(event.getGuild().getIdLong());
+        if (index != null) {
+            remove(index.roleNames, event.getOldName(), event.getRole().getIdLong());
+            add(index.roleNames, event.getRole().getName(), event.getRole().getIdLong());
+        }
+    }
+
+    @Override
+    public void onRoleUpdatePermissions(RoleUpdatePermissionsEvent event) {
+        invalidatePermissions(event.getGuild());
+    }
+
+    @Override
+    public void onTextChannelUpdatePermissions(TextChannelUpdatePermissionsEvent event) {
+        GuildIndex index = this.guilds.get(event.getGuild().getIdLong());
+        if (index != null) {
+            index.permissions.remove(event.getChannel().getIdLong());
+        }
+    }
+
+    @Override
+    public void onTextChannelDelete(TextChannelDeleteEvent event) {
+        GuildIndex index = this.guilds.get(event.getGuild().getIdLong());
+        if (index != null) {
+            index.permissions.remove(event.getChannel().getIdLong());
+        }
+    }
+
+    private void invalidatePermissions(Guild guild) {
+        GuildIndex index = this.guilds.get(guild.getIdLong());
+        if (index != null) {
+            index.permissions.clear();
+        }
+    }
+
+    private static class GuildIndex {
+        private final ConcurrentHashMap<String, Set<Long>> memberNames = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Set<Long>> memberNicknames = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Set<Long>> roleNames = new ConcurrentHashMap<>();
+        /**
+         * Channel id -> member or role id -> can read the channel
+         */
+        private final ConcurrentHashMap<Long, ConcurrentHashMap<Long, Boolean>> permissions = new ConcurrentHashMap<>();
+
+        GuildIndex(Guild guild) {
+            for (Member member : guild.getMembers()) {
+                addMember(member);
+            }
+            for (Role role : guild.getRoles()) {
+                add(this.roleNames, role.getName(), role.getIdLong());
+            }
+        }
+
+        void addMember(Member member) {
+            long memberId = member.getUser().getIdLong();
+            add(this.memberNames, member.getUser().getName(), memberId);
+            add(this.memberNicknames, member.getNickname(), memberId);
+        }
+
+        void removeMember(Member member) {
+            long memberId = member.getUser().getIdLong();
+            remove(this.memberNames, member.getUser().getName(), memberId);
+            remove(this.memberNicknames, member.getNickname(), memberId);
+            forgetPermissions(memberId);
+        }
+
+        void forgetPermissions(long id) {
+            for (ConcurrentHashMap<Long, Boolean> channelPermissions : this.permissions.values()) {
+                channelPermissions.remove(id);
+            }
+        }
+
+        boolean canRead(Channel channel, long id, Member member) {
+            return this.permissions
+                .computeIfAbsent(channel.getIdLong(), channelId -> new ConcurrentHashMap<>())
+                .computeIfAbsent(id, key -> member.hasPermission(channel, Permission.MESSAGE_READ));
+        }
+
+        boolean canRead(Channel channel, long id, Role role) {
+            return this.permissions
+                .computeIfAbsent(channel.getIdLong(), channelId -> new ConcurrentHashMap<>())
+                .computeIfAbsent(id, key -> role.hasPermission(channel, Permission.MESSAGE_READ));
+        }
+    }
+}
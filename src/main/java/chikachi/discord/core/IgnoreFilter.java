@@ -0,0 +1,514 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks text against a list of ignore patterns, as if calling find() with each of them.
+ *
+ * Every pattern that can only match text containing some literal, like "(?i)discord\.gg/\w+" which needs
+ * "discord.gg/", is found by looking for all those literals at once in a single pass. Patterns that are nothing but
+ * a literal are decided right there, the others only run when their literal is in the text. The remaining patterns
+ * are joined into one alternation, except those with back references or named groups, which can't be joined and run
+ * on their own.
+ *
+ * Every rule counts how many times it caused text to be ignored.
+ */
+public final class IgnoreFilter {
+    public static final IgnoreFilter EMPTY = new IgnoreFilter(new Rule[0], LiteralMatcher.EMPTY, LiteralMatcher.EMPTY, new int[0], null, new int[0], new int[0]);
+
+    private static final Pattern UNJOINABLE = Pattern.compile("\\\\[1-9]|\\\\k<|\\(\\?<[a-zA-Z]");
+
+    private final Rule[] rules;
+    private final LiteralMatcher caseSensitive;
+    private final LiteralMatcher caseInsensitive;
+    /**
+     * Rule index -> 1 if the rule is only a literal, 0 if it also has to match its pattern
+     */
+    private final int[] literalOnly;
+    private final Pattern joined;
+    /**
+     * Group in the joined pattern -> rule index
+     */
+    private final int[] joinedGroups;
+    private final int[] separate;
+
+    private IgnoreFilter(Rule[] rules, LiteralMatcher caseSensitive, LiteralMatcher caseInsensitive, int[] literalOnly, Pattern joined, int[] joinedGroups, int[] separate) {
+        this.rules = rules;
+        this.caseSensitive = caseSensitive;
+        this.caseInsensitive = caseInsensitive;
+        this.literalOnly = literalOnly;
+        this.joined = joined;
+        this.joinedGroups = joinedGroups;
+        this.separate = separate;
+    }
+
+    public static IgnoreFilter compile(Pattern[] patterns) {
+        if (patterns == null || patterns.length == 0) {
+            return EMPTY;
+        }
+
+        List<Rule> rules = new ArrayList<>();
+        LiteralMatcher.Builder caseSensitive = new LiteralMatcher.Builder();
+        LiteralMatcher.Builder caseInsensitive = new LiteralMatcher.Builder();
+        List<Integer> literalOnly = new ArrayList<>();
+        StringBuilder joined = new StringBuilder();
+        List<Integer> joinedGroups = new ArrayList<>();
+        List<Integer> separate = new ArrayList<>();
+
+        for (Pattern pattern : patterns) {
+            if (pattern == null) {
+                continue;
+            }
+
+            int index = rules.size();
+            rules.add(new Rule(pattern));
+
+            Literal literal = Literal.find(pattern);
+            if (literal != null) {
+                (literal.ignoreCase ? caseInsensitive : caseSensitive).add(literal.text, index);
+                literalOnly.add(literal.whole ? 1 : 0);
+                continue;
+            }
+            literalOnly.add(0);
+
+            if (UNJOINABLE.matcher(pattern.pattern()).find() || !hasInlineFlagsOnly(pattern)) {
+                separate.add(index);
+                continue;
+            }
+
+            if (joined.length() > 0) {
+                joined.append('|');
+            }
+            joined.append('(').append(pattern.pattern()).append(')');
+
+            joinedGroups.add(index);
+            // Groups inside the pattern come after the one wrapping it
+            int groups = pattern.matcher("").groupCount();
+            for (int i = 0; i < groups; i++) {
+                joinedGroups.add(-1);
+            }
+        }
+
+        Pattern joinedPattern = null;
+        if (joined.length() > 0) {
+            try {
+                joinedPattern = Pattern.compile(joined.toString());
+            } catch (Exception e) {
+                // Shouldn't happen as every part compiled on its own, but don't lose the rules if it does
+                for (int index : joinedGroups) {
+                    if (index >= 0) {
+                        separate.add(index);
+                    }
+                }
+                Collections.sort(separate);
+                joinedGroups.clear();
+            }
+        }
+
+        return new IgnoreFilter(
+            rules.toArray(new Rule[0]),
+            caseSensitive.build(),
+            caseInsensitive.build(),
+            toArray(literalOnly),
+            joinedPattern,
+            toArray(joinedGroups),
+            toArray(separate)
+        );
+    }
+
+    /**
+     * @return true, if the pattern doesn't have flags other than those written in it, so it can be joined with others
+     */
+    private static boolean hasInlineFlagsOnly(Pattern pattern) {
+        return Pattern.compile(pattern.pattern()).flags() == pattern.flags();
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * @return true, if any of the patterns is found in the text
+     */
+    public boolean matches(String text) {
+        if (text == null || this.rules.length == 0) {
+            return false;
+        }
+
+        if (this.caseSensitive.hasLiterals() || this.caseInsensitive.hasLiterals()) {
+            boolean[] candidates = new boolean[this.rules.length];
+            this.caseSensitive.find(text, false, candidates);
+            this.caseInsensitive.find(text, true, candidates);
+
+            for (int i = 0; i < candidates.length; i++) {
+                if (candidates[i] && (this.literalOnly[i] == 1 || this.rules[i].pattern.matcher(text).find())) {
+                    return hit(i);
+                }
+            }
+        }
+
+        if (this.joined != null) {
+            Matcher matcher = this.joined.matcher(text);
+            if (matcher.find()) {
+                for (int group = 1; group <= this.joinedGroups.length; group++) {
+                    int index = this.joinedGroups[group - 1];
+                    if (index >= 0 && matcher.start(group) >= 0) {
+                        return hit(index);
+                    }
+                }
+            }
+        }
+
+        for (int index : this.separate) {
+            if (this.rules[index].pattern.matcher(text).find()) {
+                return hit(index);
+            }
+        }
+
+        return false;
+    }
+
+    private boolean hit(int index) {
+        this.rules[index].hits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return The rules in the order of the patterns
+     */
+    public List<Rule> getRules() {
+        List<Rule> rules = new ArrayList<>(this.rules.length);
+        Collections.addAll(rules, this.rules);
+        return rules;
+    }
+
+    public static final class Rule {
+        private final Pattern pattern;
+        private final AtomicLong hits = new AtomicLong();
+
+        private Rule(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        public Pattern getPattern() {
+            return pattern;
+        }
+
+        public long getHits() {
+            return hits.get();
+        }
+    }
+
+    /**
+     * Text that has to be in the text for a pattern to be found.
+     */
+    private static final class Literal {
+        private final String text;
+        private final boolean ignoreCase;
+        /**
+         * Whether finding the literal is the same as finding the pattern
+         */
+        private final boolean whole;
+
+        private Literal(String text, boolean ignoreCase, boolean whole) {
+            this.text = text;
+            this.ignoreCase = ignoreCase;
+            this.whole = whole;
+        }
+
+        /**
+         * Look for the longest run of plain characters that isn't made optional by a quantifier. Patterns with
+         * alternation, groups or flags other than case insensitivity are left to the regex engine.
+         *
+         * @return The literal, or null if no literal could be found
+         */
+        static Literal find(Pattern pattern) {
+            if ((pattern.flags() & ~Pattern.CASE_INSENSITIVE) != 0) {
+                return null;
+            }
+
+            String source = pattern.pattern();
+            boolean ignoreCase = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+            int i = 0;
+            if (source.startsWith("(?i)")) {
+                ignoreCase = true;
+                i = 4;
+            }
+
+            if (source.indexOf('|') >= 0 || source.indexOf('(', i) >= 0) {
+                return null;
+            }
+
+            boolean whole = true;
+            StringBuilder run = new StringBuilder();
+            String longest = "";
+
+            while (i < source.length()) {
+                char c = source.charAt(i);
+                char literal;
+
+                if (c == '\\') {
+                    if (i + 1 >= source.length()) {
+                        return null;
+                    }
+                    char escaped = source.charAt(i + 1);
+                    if (Character.isLetterOrDigit(escaped)) {
+                        // Quoting, and escapes followed by hex, octal, control or property characters
+                        if ("Qxu0cpPN".indexOf(escaped) >= 0) {
+                            return null;
+                        }
+                        // Otherwise a character class or a boundary
+                        longest = longer(longest, run);
+                        whole = false;
+                        i += 2;
+                        continue;
+                    }
+                    literal = escaped;
+                    i += 2;
+                } else if (c == '[') {
+                    int end = findClassEnd(source, i);
+                    if (end < 0) {
+                        return null;
+                    }
+                    longest = longer(longest, run);
+                    whole = false;
+                    i = end + 1;
+                    continue;
+                } else if (".^$".indexOf(c) >= 0) {
+                    longest = longer(longest, run);
+                    whole = false;
+                    i++;
+                    continue;
+                } else if ("?*{+)".indexOf(c) >= 0) {
+                    // A quantifier after a class or boundary, or something we don't understand
+                    return null;
+                } else {
+                    literal = c;
+                    i++;
+                }
+
+                if (ignoreCase && literal >= 128) {
+                    return null;
+                }
+
+                if (i < source.length() && "?*{+".indexOf(source.charAt(i)) >= 0) {
+                    whole = false;
+                    char quantifier = source.charAt(i);
+                    if (quantifier == '+') {
+                        // At least once, so it still belongs to the run
+                        run.append(literal);
+                    }
+                    longest = longer(longest, run);
+                    i = skipQuantifier(source, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    continue;
+                }
+
+                run.append(literal);
+            }
+            longest = longer(longest, run);
+
+            if (longest.length() == 0) {
+                return null;
+            }
+
+            if (ignoreCase) {
+                longest = LiteralMatcher.toLowerAscii(longest);
+            }
+            return new Literal(longest, ignoreCase, whole);
+        }
+
+        private static String longer(String longest, StringBuilder run) {
+            String result = run.length() > longest.length() ? run.toString() : longest;
+            run.setLength(0);
+            return result;
+        }
+
+        private static int findClassEnd(String source, int start) {
+            int i = start + 1;
+            if (i < source.length() && source.charAt(i) == '^') {
+                i++;
+            }
+            if (i < source.length() && source.charAt(i) == ']') {
+                i++;
+            }
+            while (i < source.length()) {
+                char c = source.charAt(i);
+                if (c == '\\') {
+                    i += 2;
+                } else if (c == '[') {
+                    // Nested classes and intersections
+                    return -1;
+                } else if (c == ']') {
+                    return i;
+                } else {
+                    i++;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return Index after the quantifier, including a lazy or possessive suffix, or -1 if it isn't valid
+         */
+        private static int skipQuantifier(String source, int i) {
+            if (source.charAt(i) == '{') {
+                i = source.indexOf('}', i);
+                if (i < 0) {
+                    return -1;
+                }
+            }
+            i++;
+            if (i < source.length() && (source.charAt(i) == '?' || source.charAt(i) == '+')) {
+                i++;
+            }
+            return i;
+        }
+    }
+
+    /**
+     * Finds all of a set of literals in a single pass (Aho-Corasick).
+     */
+    private static final class LiteralMatcher {
+        static final LiteralMatcher EMPTY = new LiteralMatcher(new Node());
+
+        private final Node root;
+
+        private LiteralMatcher(Node root) {
+            this.root = root;
+        }
+
+        boolean hasLiterals() {
+            return !this.root.children.isEmpty();
+        }
+
+        /**
+         * Mark the rules of every literal in the text.
+         */
+        void find(String text, boolean ignoreCase, boolean[] found) {
+            if (!hasLiterals()) {
+                return;
+            }
+
+            Node node = this.root;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (ignoreCase && c >= 'A' && c <= 'Z') {
+                    c = (char) (c + ('a' - 'A'));
+                }
+
+                Node next = node.children.get(c);
+                while (next == null && node != this.root) {
+                    node = node.fail;
+                    next = node.children.get(c);
+                }
+                node = next != null ? next : this.root;
+
+                for (int rule : node.rules) {
+                    found[rule] = true;
+                }
+            }
+        }
+
+        static String toLowerAscii(String text) {
+            StringBuilder sb = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                sb.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+            }
+            return sb.toString();
+        }
+
+        static final class Builder {
+            private final Node root = new Node();
+
+            void add(String literal, int rule) {
+                Node node = this.root;
+                for (int i = 0; i < literal.length(); i++) {
+                    node = node.children.computeIfAbsent(literal.charAt(i), c -> new Node());
+                }
+                node.addRule(rule);
+            }
+
+            LiteralMatcher build() {
+                if (this.root.children.isEmpty()) {
+                    return EMPTY;
+                }
+
+                ArrayDeque<Node> queue = new ArrayDeque<>();
+                for (Node child : this.root.children.values()) {
+                    child.fail = this.root;
+                    queue.add(child);
+                }
+
+                while (!queue.isEmpty()) {
+                    Node node = queue.poll();
+                    for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+                        Node child = entry.getValue();
+
+                        Node fail = node.fail;
+                        while (fail != this.root && !fail.children.containsKey(entry.getKey())) {
+                            fail = fail.fail;
+                        }
+                        Node target = fail.children.get(entry.getKey());
+                        child.fail = target != null && target != child ? target : this.root;
+
+                        // A literal ending here also ends every shorter literal it ends with
+                        for (int rule : child.fail.rules) {
+                            child.addRule(rule);
+                        }
+                        queue.add(child);
+                    }
+                }
+
+                return new LiteralMatcher(this.root);
+            }
+        }
+
+        private static final class Node {
+            private final HashMap<Character, Node> children = new HashMap<>();
+            private Node fail;
+            private int[] rules = new int[0];
+
+            void addRule(int rule) {
+                for (int existing : this.rules) {
+                    if (existing == rule) {
+                        return;
+                    }
+                }
+                int[] rules = new int[this.rules.length + 1];
+                System.arraycopy(this.rules, 0, rules, 0, this.rules.length);
+                rules[this.rules.length] = rule;
+                this.rules = rules;
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * A {@link Batcher} per key, e.g. per channel, all running on one shared executor.
+ *
+ * A key gets its Batcher when the first item for it is queued. Keys that had nothing queued for `idleMs` are removed,
+ * so short lived keys (a command sender, a private channel) don't pile up.
+ */
+public class KeyedBatcher<K, T> {
+    private final BiConsumer<K, List<T>> consumer;
+    private final long delayMs;
+    private final long maxLatencyMs;
+    private final int maxItems;
+    private final long maxWeight;
+    private final ToIntFunction<T> weigher;
+    private final long idleNanos;
+    private final ScheduledExecutorService executor;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<K, Batcher<T>> batchers = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> idleTask;
+
+    /**
+     * @param consumer The key and its list of queued items will be passed to this Consumer, on the executor.
+     * @param idleMs   Remove a key once nothing was queued for it for this many milliseconds.
+     * @see Batcher#Batcher(java.util.function.Consumer, long, long, int, long, ToIntFunction, ScheduledExecutorService, LongSupplier)
+     */
+    public KeyedBatcher(BiConsumer<K, List<T>> consumer, long delayMs, long maxLatencyMs, int maxItems, long maxWeight, ToIntFunction<T> weigher, long idleMs, ScheduledExecutorService executor, LongSupplier clock) {
+        this.consumer = consumer;
+        this.delayMs = delayMs;
+        this.maxLatencyMs = maxLatencyMs;
+        this.maxItems = maxItems;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(idleMs, 1));
+        this.executor = executor;
+        this.clock = clock;
+
+        this.idleTask = executor.scheduleWithFixedDelay(this::removeIdle, this.idleNanos, this.idleNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Queue up an item for a key.
+     *
+     * @see Batcher#queue(Object)
+     */
+    public void queue(K key, T item) {
+        this.batchers.computeIfAbsent(key, this::createBatcher).queue(item);
+    }
+
+    private Batcher<T> createBatcher(K key) {
+        return new Batcher<>(
+            items -> this.consumer.accept(key, items),
+            this.delayMs,
+            this.maxLatencyMs,
+            this.maxItems,
+            this.maxWeight,
+            this.weigher,
+            this.executor,
+            this.clock
+        );
+    }
+
+    private void removeIdle() {
+        long idleSince = this.clock.getAsLong() - this.idleNanos;
+
+        // A producer that got a Batcher just before it was removed still has it flushed by its own timer
+        this.batchers.forEach((key, batcher) -> {
+            if (batcher.isIdleSince(idleSince)) {
+                this.batchers.remove(key, batcher);
+            }
+        });
+    }
+
+    /**
+     * Stop removing idle keys, when the KeyedBatcher is replaced. Items already queued are still passed to the
+     * Consumer, as their Batchers' timers are still scheduled.
+     */
+    public void close() {
+        this.idleTask.cancel(false);
+    }
+
+    /**
+     * @return Keys that had something queued recently
+     */
+    public int getActiveKeys() {
+        return this.batchers.size();
+    }
+
+    /**
+     * @return Key -> items waiting to be passed to the Consumer
+     */
+    public Map<K, Integer> getQueueDepths() {
+        HashMap<K, Integer> depths = new HashMap<>();
+        this.batchers.forEach((key, batcher) -> depths.put(key, batcher.size()));
+        return depths;
+    }
+}
@@ -15,10 +15,9 @@
 package chikachi.discord.core;
 
 import chikachi.discord.core.config.Configuration;
+import chikachi.discord.core.config.minecraft.MinecraftGenericConfig;
 import chikachi.discord.core.config.types.MessageConfig;
-import com.vdurmont.emoji.EmojiParser;
 import net.dv8tion.jda.core.EmbedBuilder;
-import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.Channel;
 import net.dv8tion.jda.core.entities.Member;
 import net.dv8tion.jda.core.entities.Role;
@@ -26,7 +25,6 @@ import net.dv8tion.jda.core.entities.TextChannel;
 
 import java.awt.*;
 import java.util.HashMap;
-import java.util.Optional;
 import java.util.regex.Matcher;
 
 public class Message {
@@ -37,6 +35,11 @@ public class Message {
     private MessageConfig message = null;
     private HashMap<String, String> arguments = null;
     private boolean parsing = true;
+    /**
+     * Rendered once and shared by every channel the message is broadcast to, only mentions are resolved per channel
+     */
+    private String discordBody = null;
+    private String webhookBody = null;
 
     public Message() {
     }
@@ -61,6 +64,10 @@ public class Message {
         this(author, avatarUrl, message, new HashMap<>());
     }
 
+    public Message(String author, String avatarUrl, MessageConfig message, HashMap<String, String> arguments) {
+        this(author, avatarUrl, message, arguments, null);
+    }
+
     public Message(String author, String avatarUrl, MessageConfig message, HashMap<String, String> arguments, String EventType) {
         this.author = author;
         this.avatarUrl = avatarUrl;
@@ -89,8 +96,12 @@ public class Message {
     }
 
     WebhookMessage toWebhook(TextChannel channel) {
+        if (this.webhookBody == null) {
+            this.webhookBody = formatBody(this.message != null ? this.message.getWebhookTemplate() : TextTemplate.EMPTY, true);
+        }
+
         return new WebhookMessage(
-            formatText(message.webhook, channel),
+            withPrefix(resolveMentions(this.webhookBody, channel)),
             this.author,
             this.avatarUrl
         );
@@ -98,6 +109,7 @@ public class Message {
 
     public Message setMessage(MessageConfig message) {
         this.message = message;
+        clearBodies();
         return this;
     }
 
@@ -108,6 +120,12 @@ public class Message {
 
     public Message setArguments(HashMap<String, String> arguments) {
         this.arguments = arguments;
+        clearBodies();
+        return this;
+    }
+
+    public Message setEventType(String eventType) {
+        this.EventType = eventType;
         return this;
     }
 
@@ -122,6 +140,7 @@ public class Message {
 
     public Message setAuthor(String author) {
         this.author = author;
+        clearBodies();
         return this;
     }
 
@@ -131,112 +150,117 @@ public class Message {
 
     public Message setParsing(boolean parsing) {
         this.parsing = parsing;
+        clearBodies();
         return this;
     }
 
-    private String formatText(String text, Channel channel) {
-        return formatText(text, channel, true);
+    private void clearBodies() {
+        this.discordBody = null;
+        this.webhookBody = null;
     }
 
-    private String formatText(String text, Channel channel, boolean isDiscord) {
-        String message = text;
-
+    /**
+     * Everything that doesn't depend on the channel the message is sent to: arguments, emotes, emojis and formatting.
+     */
+    private String formatBody(TextTemplate template, boolean isDiscord) {
         if (this.arguments == null) {
             this.arguments = new HashMap<>();
         }
         this.arguments.put("USER", getAuthor());
 
-        message = new TextFormatter(arguments).format(message);
-
-        if (channel != null) {
-            if (message.contains("@")) {
-                Matcher m = Patterns.tagPattern.matcher(message);
-                StringBuffer sb = new StringBuffer();
-                while (m.find()) {
-                    String name = m.group(2);
-                    String hash = m.group(3);
-
-                    if (name.equalsIgnoreCase("everyone") && hash == null) {
-                        if (Configuration.getConfig().minecraft.dimensions.generic.canMentionEveryone) {
-                            return "@everyone";
-                        } else {
-                            return name;
-                        }
-                    }
+        String message = template.render(this.arguments);
 
-                    if (name.equalsIgnoreCase("here") && hash == null) {
-                        if (Configuration.getConfig().minecraft.dimensions.generic.canMentionHere) {
-                            return "@here";
-                        } else {
-                            return name;
-                        }
-                    }
+        if (this.isParsing()) {
+            if (isDiscord) {
+                message = Configuration.getConfig().emotes.getMinecraftToDiscord().translate(message);
+                message = EmojiConverter.toUnicode(message);
+                message = Patterns.minecraftToDiscord(message);
+            } else {
+                message = EmojiConverter.toAliases(message);
+                message = Configuration.getConfig().emotes.getDiscordToMinecraft().translate(message);
+                message = Patterns.discordToMinecraft(message);
+            }
+        }
 
-                    if (Configuration.getConfig().minecraft.dimensions.generic.canMentionUsers) {
-                        Optional<Member> theMember = channel.getGuild().getMembersByName(name, true)
-                            .stream()
-                            .filter(member -> hash == null || member.getUser().getDiscriminator().equalsIgnoreCase(hash))
-                            .filter(member -> member.hasPermission(channel, Permission.MESSAGE_READ))
-                            .findAny();
-
-                        if (theMember.isPresent()) {
-                            m.appendReplacement(sb, theMember.get().getAsMention());
-                            continue;
-                        }
+        return message;
+    }
+
+    /**
+     * Turn @name into mentions of the members and roles of the channel's guild.
+     */
+    private String resolveMentions(String message, Channel channel) {
+        if (channel == null || message.indexOf('@') < 0) {
+            return message;
+        }
+
+        GuildMemberIndex memberIndex = DiscordClient.getInstance().getMemberIndex();
+        MinecraftGenericConfig genericConfig = Configuration.getConfig().minecraft.dimensions.generic;
+
+        Matcher m = Patterns.tagPattern.matcher(message);
+        StringBuffer sb = null;
+        while (m.find()) {
+            String name = m.group(2);
+            String hash = m.group(3);
+            String replacement = null;
+
+            if (name.equalsIgnoreCase("everyone") && hash == null) {
+                replacement = genericConfig.canMentionEveryone ? "@everyone" : name;
+            } else if (name.equalsIgnoreCase("here") && hash == null) {
+                replacement = genericConfig.canMentionHere ? "@here" : name;
+            } else {
+                if (genericConfig.canMentionUsers) {
+                    Member member = memberIndex.findMember(channel, name, hash != null ? hash.substring(1) : null);
+                    if (member != null) {
+                        replacement = member.getAsMention();
                     }
+                }
 
-                    if (Configuration.getConfig().minecraft.dimensions.generic.canMentionRoles) {
-                        Optional<Role> theRole =
-                            channel
-                                .getGuild()
-                                .getRolesByName(name, true)
-                                .stream()
-                                .filter(Role::isMentionable)
-                                .filter(role -> role.hasPermission(channel, Permission.MESSAGE_READ))
-                                .findAny();
-
-                        if (theRole.isPresent()) {
-                            m.appendReplacement(sb, theRole.get().getAsMention());
-                            continue;
-                        }
+                if (replacement == null && genericConfig.canMentionRoles) {
+                    Role role = memberIndex.findRole(channel, name);
+                    if (role != null) {
+                        replacement = role.getAsMention();
                     }
+                }
 
-                    m.appendReplacement(sb, name);
+                if (replacement == null) {
+                    replacement = name;
                 }
-                m.appendTail(sb);
-                message = sb.toString();
             }
-        }
 
-        if (this.isParsing()) {
-            if (isDiscord) {
-                message = CoreUtils.replace(CoreConstants.minecraftToDiscordEmotes, message);
-                message = EmojiParser.parseToUnicode(message);
-                message = Patterns.minecraftToDiscord(message);
-            } else {
-                message = EmojiParser.parseToAliases(message, EmojiParser.FitzpatrickAction.REMOVE);
-                message = CoreUtils.replace(CoreConstants.discordToMinecraftEmotes, message);
-                message = Patterns.discordToMinecraft(message);
+            if (sb == null) {
+                sb = new StringBuffer(message.length() + 16);
             }
+            m.appendReplacement(sb, Matcher.quoteReplacement(m.group(1) + replacement));
+        }
 
+        if (sb == null) {
+            return message;
         }
 
-        return String.format(
-            "%s%s",
-            this.prefix != null && this.prefix.trim().length() > 0 ? this.prefix.trim() + " " : "",
-            message
-        );
+        m.appendTail(sb);
+        return sb.toString();
     }
 
-    private String getUnformattedText() {
-        return this.message != null ? this.message.normal : "";
+    private String withPrefix(String message) {
+        if (this.prefix != null && this.prefix.trim().length() > 0) {
+            return this.prefix.trim() + " " + message;
+        }
+        return message;
+    }
+
+    private TextTemplate getUnformattedText() {
+        return this.message != null ? this.message.getNormalTemplate() : TextTemplate.EMPTY;
     }
 
     String getFormattedTextDiscord(Channel channel) {
-        return formatText(getUnformattedText(), channel, true);
+        if (this.discordBody == null) {
+            this.discordBody = formatBody(getUnformattedText(), true);
+        }
+
+        return withPrefix(resolveMentions(this.discordBody, channel));
     }
 
     public String getFormattedTextMinecraft() {
-        return formatText(getUnformattedText(), null, false);
+        return withPrefix(formatBody(getUnformattedText(), false));
     }
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits text that is too long for a single Discord message.
+ *
+ * Text is split after the last line break that fits, or the last space if a single line is too long. Code blocks and
+ * bold, italic, underline, strikethrough and inline code markers that are open where a chunk ends are closed at the
+ * end of the chunk and opened again at the start of the next one, so every chunk renders on its own.
+ */
+public final class MessageSplitter {
+    public static final int MAX_LENGTH = 2000;
+
+    private static final String FENCE = "```";
+    private static final String[] MARKERS = {"**", "__", "~~", "*", "`"};
+
+    private MessageSplitter() {
+    }
+
+    public static List<String> split(String text) {
+        return split(text, MAX_LENGTH);
+    }
+
+    public static List<String> split(String text, int maxLength) {
+        if (text == null || text.length() <= maxLength) {
+            return Collections.singletonList(text);
+        }
+
+        List<String> chunks = new ArrayList<>();
+        String reopen = "";
+        int position = 0;
+
+        while (position < text.length()) {
+            if (reopen.length() + text.length() - position <= maxLength) {
+                chunks.add(reopen + text.substring(position));
+                break;
+            }
+
+            int reserved = 0;
+            int end;
+            State state;
+
+            while (true) {
+                int budget = maxLength - reopen.length() - reserved;
+                if (budget < maxLength / 2) {
+                    // Too much formatting to keep balanced, just split the text
+                    reopen = "";
+                    reserved = 0;
+                    budget = maxLength;
+                }
+
+                end = findBreak(text, position, position + budget);
+                state = State.scan(reopen + text.substring(position, end));
+
+                int closing = state.getClosing().length();
+                if (closing <= reserved || reserved == maxLength / 2) {
+                    break;
+                }
+                reserved = Math.min(closing, maxLength / 2);
+            }
+
+            String closing = state.getClosing();
+            if (reopen.length() + (end - position) + closing.length() > maxLength) {
+                closing = "";
+            }
+
+            chunks.add(reopen + text.substring(position, end) + closing);
+            reopen = closing.length() > 0 ? state.getOpening(maxLength / 4) : "";
+
+            position = end;
+            if (position < text.length() && (text.charAt(position) == '\n' || text.charAt(position) == ' ')) {
+                position++;
+            }
+        }
+
+        return chunks;
+    }
+
+    /**
+     * @return Where to end the chunk starting at {@code start}, at most {@code limit}
+     */
+    private static int findBreak(String text, int start, int limit) {
+        if (limit >= text.length()) {
+            return text.length();
+        }
+
+        int newLine = text.lastIndexOf('\n', limit);
+        if (newLine > start) {
+            return newLine;
+        }
+
+        int space = text.lastIndexOf(' ', limit);
+        if (space > start) {
+            return space;
+        }
+
+        if (Character.isLowSurrogate(text.charAt(limit)) && limit - 1 > start) {
+            return limit - 1;
+        }
+        return limit;
+    }
+
+    /**
+     * Markdown that is still open at the end of a chunk.
+     */
+    private static final class State {
+        private final String fenceLanguage;
+        private final List<String> markers;
+
+        private State(String fenceLanguage, List<String> markers) {
+            this.fenceLanguage = fenceLanguage;
+            this.markers = markers;
+        }
+
+        static State scan(String text) {
+            String fenceLanguage = null;
+            List<String> markers = new ArrayList<>();
+
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+
+                if (c == '\\' && fenceLanguage == null) {
+                    i += 2;
+                    continue;
+                }
+
+                if (text.startsWith(FENCE, i)) {
+                    if (fenceLanguage == null) {
+                        int lineEnd = text.indexOf('\n', i + FENCE.length());
+                        String language = lineEnd < 0 ? "" : text.substring(i + FENCE.length(), lineEnd);
+                        fenceLanguage = language.indexOf(' ') < 0 && language.indexOf('`') < 0 ? language : "";
+                    } else {
+                        fenceLanguage = null;
+                    }
+                    i += FENCE.length();
+                    continue;
+                }
+
+                if (fenceLanguage != null) {
+                    i++;
+                    continue;
+                }
+
+                boolean inlineCode = markers.contains("`");
+                String found = null;
+                for (String marker : MARKERS) {
+                    if (text.startsWith(marker, i) && (!inlineCode || marker.equals("`"))) {
+                        found = marker;
+                        break;
+                    }
+                }
+
+                if (found == null) {
+                    i++;
+                    continue;
+                }
+
+                if (!markers.remove(found)) {
+                    markers.add(found);
+                }
+                i += found.length();
+            }
+
+            return new State(fenceLanguage, markers);
+        }
+
+        /**
+         * Markers can't be toggled inside a code block, so any open markers were opened before it.
+         */
+        String getClosing() {
+            StringBuilder sb = new StringBuilder();
+            if (this.fenceLanguage != null) {
+                sb.append('\n').append(FENCE);
+            }
+            for (int i = this.markers.size() - 1; i >= 0; i--) {
+                sb.append(this.markers.get(i));
+            }
+            return sb.toString();
+        }
+
+        /**
+         * @param maxLanguageLength A longer code block language is left out, so it doesn't crowd out the text
+         */
+        String getOpening(int maxLanguageLength) {
+            StringBuilder sb = new StringBuilder();
+            for (String marker : this.markers) {
+                sb.append(marker);
+            }
+            if (this.fenceLanguage != null) {
+                sb.append(FENCE);
+                if (this.fenceLanguage.length() <= maxLanguageLength) {
+                    sb.append(this.fenceLanguage);
+                }
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+    }
+}
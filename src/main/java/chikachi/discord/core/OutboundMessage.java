@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import java.util.Objects;
+
+/**
+ * A formatted message waiting in a channel's {@link Batcher}, together with who it should be sent as.
+ * Messages sent directly to the channel (not through a webhook) have no username or avatar.
+ */
+class OutboundMessage {
+    private final String content;
+    private final boolean webhook;
+    private final String username;
+    private final String avatarUrl;
+
+    OutboundMessage(String content) {
+        this.content = content;
+        this.webhook = false;
+        this.username = null;
+        this.avatarUrl = null;
+    }
+
+    OutboundMessage(WebhookMessage webhookMessage) {
+        this.content = webhookMessage.getContent();
+        this.webhook = true;
+        this.username = webhookMessage.getUsername();
+        this.avatarUrl = webhookMessage.getAvatarUrl();
+    }
+
+    String getContent() {
+        return content;
+    }
+
+    boolean isWebhook() {
+        return webhook;
+    }
+
+    /**
+     * Messages can only be joined together if they would show up with the same author in Discord.
+     */
+    boolean isSameSender(OutboundMessage other) {
+        return this.webhook == other.webhook
+            && Objects.equals(this.username, other.username)
+            && Objects.equals(this.avatarUrl, other.avatarUrl);
+    }
+
+    WebhookMessage toWebhook(String content) {
+        return new WebhookMessage(content, this.username, this.avatarUrl);
+    }
+}
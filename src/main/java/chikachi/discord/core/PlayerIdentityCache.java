@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import chikachi.discord.core.config.Configuration;
+import net.dv8tion.jda.core.entities.User;
+import net.dv8tion.jda.core.events.user.UserAvatarUpdateEvent;
+import net.dv8tion.jda.core.events.user.UserNameUpdateEvent;
+import net.dv8tion.jda.core.hooks.ListenerAdapter;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Name and avatar to show for each online player, with linked Discord accounts already resolved.
+ *
+ * Players are added when they log in and removed when they log out. Entries are resolved again when the player links
+ * or unlinks their account, or when the linked Discord user changes name or avatar.
+ */
+public class PlayerIdentityCache extends ListenerAdapter {
+    private static PlayerIdentityCache instance;
+
+    private final ConcurrentHashMap<UUID, PlayerIdentity> players = new ConcurrentHashMap<>();
+
+    private PlayerIdentityCache() {
+    }
+
+    public static PlayerIdentityCache getInstance() {
+        if (instance == null) {
+            instance = new PlayerIdentityCache();
+        }
+
+        return instance;
+    }
+
+    public void login(UUID playerId, String minecraftName) {
+        this.players.put(playerId, resolve(playerId, minecraftName));
+    }
+
+    public void logout(UUID playerId) {
+        this.players.remove(playerId);
+    }
+
+    /**
+     * @param playerId      Minecraft UUID of the player
+     * @param minecraftName Name to use if the player isn't online (anymore)
+     */
+    public PlayerIdentity get(UUID playerId, String minecraftName) {
+        PlayerIdentity identity = this.players.get(playerId);
+
+        if (identity == null) {
+            return resolve(playerId, minecraftName);
+        }
+
+        if (identity.isPending()) {
+            // The linked Discord user wasn't known yet when the player logged in (not connected to Discord yet)
+            PlayerIdentity resolved = resolve(playerId, identity.getMinecraftName());
+            if (!resolved.isPending()) {
+                this.players.replace(playerId, identity, resolved);
+            }
+            return resolved;
+        }
+
+        return identity;
+    }
+
+    /**
+     * Resolve the player again, after the player linked or unlinked their account.
+     */
+    public void invalidate(UUID playerId) {
+        this.players.computeIfPresent(playerId, (id, identity) -> resolve(id, identity.getMinecraftName()));
+    }
+
+    private void invalidate(User user) {
+        long discordId = user.getIdLong();
+
+        this.players.replaceAll((playerId, identity) -> identity.getDiscordId() == discordId ? resolve(playerId, identity.getMinecraftName()) : identity);
+    }
+
+    private static PlayerIdentity resolve(UUID playerId, String minecraftName) {
+        Long discordId = Configuration.getLinking().getDiscordId(playerId);
+        if (discordId != null) {
+            User discordUser = DiscordClient.getInstance().getUser(discordId);
+            if (discordUser != null) {
+                return new PlayerIdentity(minecraftName, discordUser.getName(), discordUser.getEffectiveAvatarUrl(), discordId, false);
+            }
+
+            return new PlayerIdentity(minecraftName, minecraftName, CoreUtils.getAvatarUrl(minecraftName), discordId, true);
+        }
+
+        return new PlayerIdentity(minecraftName, minecraftName, CoreUtils.getAvatarUrl(minecraftName), 0, false);
+    }
+
+    @Override
+    public void onUserNameUpdate(UserNameUpdateEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @Override
+    public void onUserAvatarUpdate(UserAvatarUpdateEvent event) {
+        invalidate(event.getUser());
+    }
+
+    public static final class PlayerIdentity {
+        private final String minecraftName;
+        private final String name;
+        private final String avatarUrl;
+        private final long discordId;
+        private final boolean pending;
+
+        private PlayerIdentity(String minecraftName, String name, String avatarUrl, long discordId, boolean pending) {
+            this.minecraftName = minecraftName;
+            this.name = name;
+            this.avatarUrl = avatarUrl;
+            this.discordId = discordId;
+            this.pending = pending;
+        }
+
+        public String getMinecraftName() {
+            return minecraftName;
+        }
+
+        /**
+         * @return Name of the linked Discord user, or the Minecraft name if the player isn't linked
+         */
+        public String getName() {
+            return name;
+        }
+
+        public String getAvatarUrl() {
+            return avatarUrl;
+        }
+
+        /**
+         * @return Id of the linked Discord user, 0 if the player isn't linked
+         */
+        public long getDiscordId() {
+            return discordId;
+        }
+
+        /**
+         * @return true, if the player is linked but the Discord user couldn't be looked up
+         */
+        boolean isPending() {
+            return pending;
+        }
+
+        /**
+         * @return true, if the name and avatar are the linked Discord user's
+         */
+        public boolean isLinked() {
+            return discordId != 0 && !pending;
+        }
+    }
+}
@@ -15,10 +15,13 @@
 package chikachi.discord.core;
 
 import chikachi.discord.core.config.Configuration;
+import chikachi.discord.core.config.emotes.EmotesConfig;
 import chikachi.discord.core.config.minecraft.MinecraftConfig;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.io.File;
 import java.util.Date;
+import java.util.HashMap;
 
 public class Proxy {
     private static boolean preInit = false;
@@ -58,11 +61,42 @@ public class Proxy {
 
         Configuration.onPreInit(configurationPath.getAbsolutePath() + File.separator + "Chikachi");
         Configuration.validateConfig();
+        Configuration.addLoadListener(DiscordClient.getInstance()::onConfigLoaded);
+
+        new ThreadFactoryBuilder()
+            .setNameFormat(CoreConstants.MODNAME + " Warmup")
+            .setDaemon(true)
+            .build()
+            .newThread(Proxy::warmUp)
+            .start();
 
         preInit = true;
     }
 
+    /**
+     * Load the emoji database and run the message formatting once, so the first chat message doesn't have to wait
+     * for it.
+     */
+    private static void warmUp() {
+        try {
+            EmotesConfig emotesConfig = Configuration.getConfig().emotes;
+            EmojiConverter.warmUp();
+
+            String sample = "&lHello&r :) <3 :smile: \u00a7oworld\u00a7r \ud83d\ude04 **bold** __underline__ ~~strike~~ *italic*";
+            HashMap<String, String> arguments = new HashMap<>();
+            arguments.put("USER", "Steve");
+            arguments.put("MESSAGE", sample);
+
+            String message = TextTemplate.compile("<{USER}> {MESSAGE}").render(arguments);
+            Patterns.minecraftToDiscord(EmojiConverter.toUnicode(emotesConfig.getMinecraftToDiscord().translate(message)));
+            Patterns.discordToMinecraft(emotesConfig.getDiscordToMinecraft().translate(EmojiConverter.toAliases(message)));
+        } catch (Exception e) {
+            DiscordIntegrationLogger.Log(String.format("Warmup failed: %s", e.getMessage()), true);
+        }
+    }
+
     public void onServerStarting() {
+        RelayPipeline.getInstance().start();
         DiscordClient.getInstance().connect();
         started = new Date().getTime();
     }
@@ -98,6 +132,9 @@ public class Proxy {
     }
 
     public void onServerStopped() {
+        // Relay whatever is still queued (players being kicked etc.) before disconnecting
+        RelayPipeline.getInstance().shutdown();
+
         if (!serverStopping) {
             MinecraftConfig minecraftConfig = Configuration.getConfig().minecraft;
 
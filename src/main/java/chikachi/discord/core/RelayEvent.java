@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of a Minecraft event that should be relayed to Discord.
+ *
+ * The server thread only captures what it knows about the event (who, where and the raw arguments) and hands it to
+ * the {@link RelayPipeline}, which does the routing, formatting and sending on its own threads.
+ */
+public final class RelayEvent {
+    public enum Type {
+        CHAT,
+        COMMAND,
+        ACHIEVEMENT,
+        PLAYER_JOIN,
+        PLAYER_LEAVE,
+        PLAYER_DEATH
+    }
+
+    private final Type type;
+    private final Integer dimension;
+    private final UUID playerId;
+    private final String playerName;
+    private final String text;
+    private final Map<String, String> arguments;
+
+    /**
+     * @param type       Type of the event, decides which relay and message config is used.
+     * @param dimension  Dimension the event happened in, or null if the source isn't in a world (console, rcon, ...).
+     * @param playerId   Minecraft UUID of the player, or null if the source isn't a player.
+     * @param playerName Name shown as the author of the message.
+     * @param text       Text checked against messageIgnoreRegex, or null if the event shouldn't be filtered.
+     * @param arguments  Arguments for the message template. The map is copied.
+     */
+    public RelayEvent(Type type, Integer dimension, UUID playerId, String playerName, String text, Map<String, String> arguments) {
+        this.type = type;
+        this.dimension = dimension;
+        this.playerId = playerId;
+        this.playerName = playerName;
+        this.text = text;
+        this.arguments = arguments == null || arguments.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(arguments));
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Integer getDimension() {
+        return dimension;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Map<String, String> getArguments() {
+        return arguments;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import chikachi.discord.core.config.Configuration;
+import chikachi.discord.core.config.minecraft.MinecraftRelayConfig;
+import chikachi.discord.core.config.minecraft.RoutingTable;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.HashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relays Minecraft events to Discord off the server thread.
+ *
+ * Event handlers only capture a {@link RelayEvent} and submit it. Routing, linking lookups, formatting and handing the
+ * message to JDA happens on a small pool of worker threads, reading from a bounded queue. When the queue is full the
+ * configured overflow policy decides what happens, and every event thrown away is counted.
+ */
+public class RelayPipeline {
+    private static RelayPipeline instance;
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private volatile ThreadPoolExecutor executor;
+
+    private RelayPipeline() {
+    }
+
+    public static RelayPipeline getInstance() {
+        if (instance == null) {
+            instance = new RelayPipeline();
+        }
+
+        return instance;
+    }
+
+    public synchronized void start() {
+        if (this.executor != null) {
+            return;
+        }
+
+        MinecraftRelayConfig relayConfig = Configuration.getConfig().minecraft.relay;
+
+        this.executor = new ThreadPoolExecutor(
+            relayConfig.workerThreads,
+            relayConfig.workerThreads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(relayConfig.queueSize),
+            new ThreadFactoryBuilder()
+                .setNameFormat(CoreConstants.MODNAME + " Relay #%d")
+                .setDaemon(true)
+                .build(),
+            new OverflowHandler(relayConfig)
+        );
+    }
+
+    /**
+     * Stop accepting events and give the workers a moment to relay what is still queued.
+     */
+    public synchronized void shutdown() {
+        if (this.executor == null) {
+            return;
+        }
+
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                DiscordIntegrationLogger.Log(
+                    String.format(
+                        "Gave up relaying %d queued event(s)",
+                        this.executor.shutdownNow().size()
+                    ),
+                    true
+                );
+            }
+        } catch (InterruptedException e) {
+            this.executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        this.executor = null;
+    }
+
+    public void submit(RelayEvent event) {
+        ThreadPoolExecutor executor = this.executor;
+
+        if (executor == null) {
+            // Not started (yet), relay the old way
+            process(event);
+            return;
+        }
+
+        executor.execute(() -> process(event));
+    }
+
+    public long getDroppedEvents() {
+        return this.droppedEvents.get();
+    }
+
+    public int getQueuedEvents() {
+        ThreadPoolExecutor executor = this.executor;
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    private void onDropped() {
+        long dropped = this.droppedEvents.incrementAndGet();
+        if (dropped % 100 == 1) {
+            DiscordIntegrationLogger.Log(
+                String.format(
+                    "Relay queue is full, %d event(s) dropped so far",
+                    dropped
+                ),
+                true
+            );
+        }
+    }
+
+    private void process(RelayEvent event) {
+        try {
+            relay(event);
+        } catch (Exception e) {
+            DiscordIntegrationLogger.Log("Failed to relay " + event.getType() + " event", true);
+            e.printStackTrace();
+        }
+    }
+
+    private void relay(RelayEvent event) {
+        if (event.getText() != null && Configuration.getConfig().minecraft.dimensions.generic.isMessageIgnored(event.getText())) {
+            return;
+        }
+
+        RoutingTable routing = Configuration.getRouting();
+        RoutingTable.Route route = event.getDimension() != null ? routing.getRoute(event.getDimension(), event.getType()) : routing.getRoute(event.getType());
+
+        if (route.getChannels().length == 0) {
+            return;
+        }
+
+        String authorName = event.getPlayerName();
+        String avatarUrl = CoreUtils.getAvatarUrl(authorName);
+
+        if (event.getPlayerId() != null) {
+            // Unlinked players keep the name on the event, which follows nickname changes
+            PlayerIdentityCache.PlayerIdentity identity = PlayerIdentityCache.getInstance().get(event.getPlayerId(), authorName);
+            if (identity.isLinked()) {
+                authorName = identity.getName();
+                avatarUrl = identity.getAvatarUrl();
+            }
+        }
+
+        Message message = new Message()
+            .setAuthor(authorName)
+            .setAvatarUrl(avatarUrl)
+            .setMessage(route.getMessage())
+            .setArguments(new HashMap<>(event.getArguments()));
+
+        switch (event.getType()) {
+            case CHAT:
+                message.setPrefix(route.getChatPrefix());
+                break;
+            case COMMAND:
+                message.setParsing(false);
+                break;
+            case ACHIEVEMENT:
+                message.setEventType("ACH");
+                break;
+            default:
+                break;
+        }
+
+        DiscordClient.getInstance().broadcast(message, route.getChannels());
+    }
+
+    private class OverflowHandler implements RejectedExecutionHandler {
+        private final boolean dropOldest;
+        private final boolean callerRuns;
+
+        OverflowHandler(MinecraftRelayConfig relayConfig) {
+            this.dropOldest = relayConfig.isDroppingOldest();
+            this.callerRuns = relayConfig.isCallerRuns();
+        }
+
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                onDropped();
+                return;
+            }
+
+            if (this.callerRuns) {
+                runnable.run();
+                return;
+            }
+
+            if (this.dropOldest && executor.getQueue().poll() != null) {
+                onDropped();
+                executor.execute(runnable);
+                return;
+            }
+
+            onDropped();
+        }
+    }
+}
@@ -18,7 +18,6 @@ import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
 
 public class TextFormatter {
     private HashMap<String, String> arguments = new HashMap<>();
@@ -63,12 +62,10 @@ public class TextFormatter {
     }
 
     public String format(String message) {
-        for (Map.Entry<String, String> entry : this.arguments.entrySet()) {
-            if (entry == null || entry.getKey() == null || entry.getValue() == null) {
-                continue;
-            }
-            message = message.replace("{" + entry.getKey() + "}", entry.getValue());
-        }
-        return message;
+        return TextTemplate.render(message, this.arguments);
+    }
+
+    public String format(TextTemplate template) {
+        return template.render(this.arguments);
     }
 }
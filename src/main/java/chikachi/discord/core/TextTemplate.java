@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * A message template like "<{USER}> {MESSAGE}", split into literal text and placeholders once.
+ *
+ * Rendering walks the segments in a single pass, so argument values are never searched for placeholders themselves.
+ * Placeholders without a (non-null) argument are kept as they are, same as before.
+ */
+public final class TextTemplate {
+    public static final TextTemplate EMPTY = new TextTemplate("", new String[0], new boolean[0]);
+
+    private static final int MAX_CACHED_BUILDER = 8192;
+    private static final ThreadLocal<StringBuilder> builder = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String source;
+    private final String[] segments;
+    private final boolean[] placeholders;
+
+    private TextTemplate(String source, String[] segments, boolean[] placeholders) {
+        this.source = source;
+        this.segments = segments;
+        this.placeholders = placeholders;
+    }
+
+    public static TextTemplate compile(String source) {
+        if (source == null || source.length() == 0) {
+            return new TextTemplate(source, EMPTY.segments, EMPTY.placeholders);
+        }
+
+        ArrayList<String> segments = new ArrayList<>();
+        ArrayList<Boolean> placeholders = new ArrayList<>();
+
+        int literalStart = 0;
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            int end = findPlaceholderEnd(source, i);
+            if (end < 0) {
+                i++;
+                continue;
+            }
+
+            if (literalStart < i) {
+                segments.add(source.substring(literalStart, i));
+                placeholders.add(false);
+            }
+            segments.add(source.substring(i + 1, end));
+            placeholders.add(true);
+
+            i = end + 1;
+            literalStart = i;
+        }
+
+        if (literalStart < length) {
+            segments.add(source.substring(literalStart));
+            placeholders.add(false);
+        }
+
+        boolean[] isPlaceholder = new boolean[placeholders.size()];
+        for (int j = 0; j < isPlaceholder.length; j++) {
+            isPlaceholder[j] = placeholders.get(j);
+        }
+
+        return new TextTemplate(source, segments.toArray(new String[0]), isPlaceholder);
+    }
+
+    /**
+     * Fill in the placeholders of a template without compiling it, for templates that are only used once.
+     */
+    public static String render(String source, Map<String, String> arguments) {
+        if (source == null || source.indexOf('{') < 0 || arguments == null || arguments.isEmpty()) {
+            return source;
+        }
+
+        StringBuilder sb = getBuilder();
+        int literalStart = 0;
+        int length = source.length();
+        int i = source.indexOf('{');
+        while (i >= 0 && i < length) {
+            int end = findPlaceholderEnd(source, i);
+            if (end < 0) {
+                i = source.indexOf('{', i + 1);
+                continue;
+            }
+
+            String value = arguments.get(source.substring(i + 1, end));
+            if (value != null) {
+                sb.append(source, literalStart, i).append(value);
+                literalStart = end + 1;
+            }
+
+            i = source.indexOf('{', end + 1);
+        }
+
+        if (literalStart == 0) {
+            return source;
+        }
+
+        sb.append(source, literalStart, length);
+        return sb.toString();
+    }
+
+    /**
+     * @return Index of the '}' closing the placeholder starting at {@code start}, or -1 if there is no placeholder there
+     */
+    private static int findPlaceholderEnd(String source, int start) {
+        if (source.charAt(start) != '{') {
+            return -1;
+        }
+
+        for (int i = start + 1; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '}') {
+                return i;
+            }
+            if (c == '{') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static StringBuilder getBuilder() {
+        StringBuilder sb = builder.get();
+        if (sb.capacity() > MAX_CACHED_BUILDER) {
+            // Don't keep a huge buffer around after one long message
+            sb = new StringBuilder(256);
+            builder.set(sb);
+        }
+        sb.setLength(0);
+        return sb;
+    }
+
+    public String render(Map<String, String> arguments) {
+        if (this.segments.length == 0) {
+            return "";
+        }
+
+        if (this.segments.length == 1 && !this.placeholders[0]) {
+            return this.segments[0];
+        }
+
+        StringBuilder sb = getBuilder();
+        for (int i = 0; i < this.segments.length; i++) {
+            String segment = this.segments[i];
+
+            if (this.placeholders[i]) {
+                String value = arguments != null ? arguments.get(segment) : null;
+                if (value == null) {
+                    sb.append('{').append(segment).append('}');
+                } else {
+                    sb.append(value);
+                }
+            } else {
+                sb.append(segment);
+            }
+        }
+        return sb.toString();
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
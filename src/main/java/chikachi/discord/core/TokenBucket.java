@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+/**
+ * Allows bursts of up to {@code capacity} actions, refilled at a steady rate.
+ *
+ * Times are System.nanoTime() values, passed in so a caller checking several buckets uses the same time for all.
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * @param capacity        Most tokens the bucket holds, and starts with
+     * @param tokensPerSecond Tokens added per second
+     * @param now             Current System.nanoTime()
+     */
+    public TokenBucket(int capacity, double tokensPerSecond, long now) {
+        this.capacity = Math.max(capacity, 1);
+        this.tokensPerNano = Math.max(tokensPerSecond, 0) / 1e9;
+        this.tokens = this.capacity;
+        this.refilledAt = now;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - this.refilledAt;
+        if (elapsed > 0) {
+            this.tokens = Math.min(this.capacity, this.tokens + elapsed * this.tokensPerNano);
+            this.refilledAt = now;
+        }
+    }
+
+    /**
+     * @return true, if there is a token to take
+     */
+    public synchronized boolean hasToken(long now) {
+        refill(now);
+        return this.tokens >= 1;
+    }
+
+    /**
+     * @return true, if a token was taken
+     */
+    public synchronized boolean tryAcquire(long now) {
+        refill(now);
+        if (this.tokens < 1) {
+            return false;
+        }
+        this.tokens -= 1;
+        return true;
+    }
+
+    /**
+     * @return true, if the bucket has refilled completely, so it's the same as a new bucket
+     */
+    public synchronized boolean isFull(long now) {
+        refill(now);
+        return this.tokens >= this.capacity;
+    }
+}
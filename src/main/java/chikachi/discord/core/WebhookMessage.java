@@ -14,16 +14,14 @@
 
 package chikachi.discord.core;
 
-import chikachi.discord.core.config.Configuration;
 import net.dv8tion.jda.core.JDA;
 import net.dv8tion.jda.core.requests.Request;
 import net.dv8tion.jda.core.requests.Response;
 import net.dv8tion.jda.core.requests.RestAction;
-import net.dv8tion.jda.core.requests.Route;
 import org.json.JSONObject;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 class WebhookMessage {
     private String content;
@@ -36,49 +34,79 @@ class WebhookMessage {
         this.avatarUrl = avatarUrl;
     }
 
-    boolean queue(JDA jda, Long channelId) {
-        if (this.content == null || this.content.trim().length() == 0) {
-            return false;
-        }
+    String getContent() {
+        return content;
+    }
 
-        String webhook = Configuration.getConfig().discord.channels.channels.get(channelId).webhook.trim();
-        Matcher matcher = Pattern.compile("https://(ptb\\.)?discordapp\\.com/api/webhooks/([0-9]+)/([a-zA-Z0-9\\-_]+)").matcher(webhook);
-        if (matcher.matches()) {
-            String webhookId = matcher.group(2);
-            String webhookToken = matcher.group(3);
+    String getUsername() {
+        return username;
+    }
 
-            Route.CompiledRoute route = Route.Webhooks.EXECUTE_WEBHOOK.compile(webhookId, webhookToken);
+    String getAvatarUrl() {
+        return avatarUrl;
+    }
 
-            JSONObject json = new JSONObject();
-            if (this.username != null) {
-                json.put("username", this.username);
-            }
-            if (this.avatarUrl != null) {
-                json.put("avatar_url", this.avatarUrl);
-            }
+    /**
+     * @return true, if there is something to send
+     */
+    boolean hasContent() {
+        return this.content != null && this.content.trim().length() > 0;
+    }
 
-            String text = this.content;
+    boolean queue(JDA jda, WebhookTarget webhook) {
+        if (webhook == null || !hasContent()) {
+            return false;
+        }
 
-            if (text.length() > 2000) {
-                text = text.substring(0, 1997) + "...";
-            }
+        // Like messages sent by the bot, JDA executes the same webhook in the order the requests were queued
+        for (String chunk : MessageSplitter.split(this.content)) {
+            toRestAction(jda, webhook, chunk).queue();
+        }
+        return true;
+    }
+
+    /**
+     * Like {@link #queue(JDA, WebhookTarget)}, but tells when Discord accepted the message.
+     *
+     * @return Completes when every part is sent, or exceptionally if one of them failed. null if there is nothing to
+     * send.
+     */
+    CompletableFuture<Void> submit(JDA jda, WebhookTarget webhook) {
+        if (webhook == null || !hasContent()) {
+            return null;
+        }
 
-            json.put("content", text);
+        List<String> chunks = MessageSplitter.split(this.content);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks.size()];
+        for (int i = 0; i < futures.length; i++) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            toRestAction(jda, webhook, chunks.get(i)).queue(future::complete, future::completeExceptionally);
+            futures[i] = future;
+        }
+        return CompletableFuture.allOf(futures);
+    }
 
-            new RestAction<Void>(jda, route, json) {
-                protected void handleResponse(Response response, Request<Void> request) {
-                    try {
-                        if (response.isOk()) {
-                            request.onSuccess(null);
-                        } else {
-                            request.onFailure(response);
-                        }
-                    } catch (Exception ignored) {
+    private RestAction<Void> toRestAction(JDA jda, WebhookTarget webhook, String chunk) {
+        JSONObject json = new JSONObject();
+        if (this.username != null) {
+            json.put("username", this.username);
+        }
+        if (this.avatarUrl != null) {
+            json.put("avatar_url", this.avatarUrl);
+        }
+        json.put("content", chunk);
+
+        return new RestAction<Void>(jda, webhook.getRoute(), json) {
+            protected void handleResponse(Response response, Request<Void> request) {
+                try {
+                    if (response.isOk()) {
+                        request.onSuccess(null);
+                    } else {
+                        request.onFailure(response);
                     }
+                } catch (Exception ignored) {
                 }
-            }.queue();
-            return true;
-        }
-        return false;
+            }
+        };
     }
 }
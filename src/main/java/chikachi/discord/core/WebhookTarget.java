@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import net.dv8tion.jda.core.requests.Route;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A webhook URL from the config, parsed once into its id, token and the route to execute it.
+ */
+public final class WebhookTarget {
+    private static final Pattern webhookPattern = Pattern.compile("https://(?:(?:ptb|canary)\\.)?discord(?:app)?\\.com/api/(?:v[0-9]+/)?webhooks/([0-9]+)/([a-zA-Z0-9\\-_]+)/?");
+
+    private final String id;
+    private final String token;
+    private final Route.CompiledRoute route;
+
+    private WebhookTarget(String id, String token) {
+        this.id = id;
+        this.token = token;
+        this.route = Route.Webhooks.EXECUTE_WEBHOOK.compile(id, token);
+    }
+
+    /**
+     * @param url Webhook URL as copied from Discord
+     * @return The parsed webhook, or null if the URL is empty or not a webhook URL
+     */
+    public static WebhookTarget parse(String url) {
+        if (url == null) {
+            return null;
+        }
+
+        Matcher matcher = webhookPattern.matcher(url.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        return new WebhookTarget(matcher.group(1), matcher.group(2));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    Route.CompiledRoute getRoute() {
+        return route;
+    }
+}
@@ -15,17 +15,30 @@
 package chikachi.discord.core.config;
 
 import chikachi.discord.core.config.discord.DiscordConfig;
+import chikachi.discord.core.config.emotes.EmotesConfig;
 import chikachi.discord.core.config.imc.IMCConfig;
 import chikachi.discord.core.config.minecraft.MinecraftConfig;
+import chikachi.discord.core.config.minecraft.MinecraftGenericConfig;
 import com.google.gson.annotations.Since;
 
 public class ConfigWrapper {
+    private static final int REVISION = 1;
+
     @Since(3.0)
     public DiscordConfig discord;
     @Since(3.0)
     public MinecraftConfig minecraft;
     @Since(3.0)
     public IMCConfig imc;
+    @Since(3.0)
+    public EmotesConfig emotes;
+    /**
+     * Missing in configs saved before defaults had to be migrated
+     */
+    @Since(3.0)
+    public int revision = 0;
+
+    private transient boolean migrated = false;
 
     public void fillFields() {
         if (this.discord == null) {
@@ -42,5 +55,36 @@ public class ConfigWrapper {
             this.imc = new IMCConfig();
         }
         this.imc.fillFields();
+
+        if (this.emotes == null) {
+            this.emotes = new EmotesConfig();
+        }
+        this.emotes.fillFields();
+
+        migrate();
+    }
+
+    /**
+     * Bring a config saved by an older version up to date.
+     */
+    private void migrate() {
+        if (this.revision >= REVISION) {
+            return;
+        }
+
+        if (this.revision < 1) {
+            // Ignoring list and help used to be hard-coded, keep ignoring them in configs saved before it was a rule
+            this.minecraft.dimensions.generic.addCommandIgnoreRegex(MinecraftGenericConfig.LIST_HELP_COMMANDS);
+        }
+
+        this.revision = REVISION;
+        this.migrated = true;
+    }
+
+    /**
+     * @return true, if the config was changed when it was loaded and should be saved
+     */
+    public boolean wasMigrated() {
+        return this.migrated;
     }
 }
@@ -14,9 +14,13 @@
 
 package chikachi.discord.core.config;
 
+import chikachi.discord.core.CommandPermissionCache;
 import chikachi.discord.core.CoreConstants;
 import chikachi.discord.core.DiscordIntegrationLogger;
+import chikachi.discord.core.EmojiConverter;
+import chikachi.discord.core.config.discord.CommandIndex;
 import chikachi.discord.core.config.linking.LinkingWrapper;
+import chikachi.discord.core.config.minecraft.RoutingTable;
 import chikachi.discord.core.config.types.*;
 import chikachi.discord.core.config.validator.ConfigurationValidator;
 import com.google.gson.Gson;
@@ -27,6 +31,8 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Pattern;
 
 public class Configuration {
@@ -37,6 +43,9 @@ public class Configuration {
 
     private static ConfigWrapper config;
     private static LinkingWrapper linking;
+    private static volatile RoutingTable routing;
+    private static volatile CommandIndex commands;
+    private static final List<Runnable> loadListeners = new CopyOnWriteArrayList<>();
 
     public static void onPreInit(String directoryPath) {
         directory = new File(directoryPath);
@@ -91,6 +100,10 @@ public class Configuration {
                     config = new ConfigWrapper();
                 }
                 config.fillFields();
+
+                if (config.wasMigrated()) {
+                    saveConfig();
+                }
             } catch (Exception e) {
                 if (e instanceof JsonSyntaxException) {
                     DiscordIntegrationLogger.Log("Config had invalid syntax - Please check it using a JSON tool ( https://jsonlint.com/ ) or make sure it have the right content", true);
@@ -111,6 +124,22 @@ public class Configuration {
                 }
             }
         }
+
+        routing = RoutingTable.compile(config.minecraft.dimensions);
+        commands = CommandIndex.compile(config.discord.channels);
+        EmojiConverter.setAliases(config.emotes.emojiAliasTable ? config.emotes.minecraftToDiscord.values() : null);
+        CommandPermissionCache.getInstance().clear();
+
+        for (Runnable listener : loadListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * @param listener Called every time the config was loaded again, to rebuild what was built from the old config
+     */
+    public static void addLoadListener(Runnable listener) {
+        loadListeners.add(listener);
     }
 
     public static void saveConfig() {
@@ -190,6 +219,14 @@ public class Configuration {
         return config;
     }
 
+    public static RoutingTable getRouting() {
+        return routing;
+    }
+
+    public static CommandIndex getCommands() {
+        return commands;
+    }
+
     public static LinkingWrapper getLinking() {
         return linking;
     }
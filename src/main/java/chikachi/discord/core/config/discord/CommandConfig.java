@@ -14,10 +14,10 @@
 
 package chikachi.discord.core.config.discord;
 
-import chikachi.discord.core.DiscordClient;
-import chikachi.discord.core.config.Configuration;
-import com.google.common.base.Joiner;
-import net.dv8tion.jda.core.entities.*;
+import chikachi.discord.core.CommandPermissionCache;
+import chikachi.discord.core.CommandTemplate;
+import net.dv8tion.jda.core.entities.MessageChannel;
+import net.dv8tion.jda.core.entities.User;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +30,9 @@ public class CommandConfig {
     private List<String> aliases = new ArrayList<>();
     private List<String> permissions = new ArrayList<>();
 
+    private transient CommandTemplate template;
+    private transient CommandPermissions compiledPermissions;
+
     public CommandConfig() {
 
     }
@@ -60,26 +63,33 @@ public class CommandConfig {
     }
 
     public boolean shouldExecute(String command, User executor, MessageChannel channel) {
-        return isEnabled() && (this.name.equalsIgnoreCase(command) || this.aliases.contains(command.toLowerCase())) && this.checkPermission(executor, channel);
+        return isEnabled() && (this.name.equalsIgnoreCase(command) || this.aliases.contains(command.toLowerCase())) && this.hasPermission(executor, channel);
+    }
+
+    /**
+     * Compile the template and permissions now instead of on the first use
+     */
+    void compile() {
+        getTemplate();
+        getPermissions();
     }
 
     public String buildCommand(List<String> args) {
-        String cmd = this.command;
-
-        int argsCount = args.size();
-        if (argsCount > 0) {
-            for (int i = 0; i < argsCount; i++) {
-                cmd = cmd.replaceAll("(?i)\\{ARG_" + (i + 1) + "}", args.get(i));
-            }
-            cmd = cmd.replaceAll("(?i)\\{ARGS}", Joiner.on(' ').join(args));
-        }
-        cmd = cmd.replaceAll("(?i)\\{(ARG_[0-9]+|ARGS)}", "");
+        return getTemplate().render(args);
+    }
 
-        return cmd.trim();
+    private CommandTemplate getTemplate() {
+        CommandTemplate template = this.template;
+        if (template == null || template.getSource() != this.command) {
+            template = CommandTemplate.compile(this.command);
+            this.template = template;
+        }
+        return template;
     }
 
-    private boolean checkPermission(User user, MessageChannel channel) {
-        if (this.permissions.size() == 0) {
+    public boolean hasPermission(User user, MessageChannel channel) {
+        CommandPermissions permissions = getPermissions();
+        if (permissions.isEmpty()) {
             return true;
         }
 
@@ -87,40 +97,15 @@ public class CommandConfig {
             return false;
         }
 
-        final List<Role> roles = new ArrayList<>();
-        if (channel instanceof TextChannel) {
-            Member member = ((TextChannel) channel).getGuild().getMember(user);
-            if (member != null) {
-                roles.addAll(member.getRoles());
-            }
-        } else if (channel instanceof PrivateChannel && Configuration.getConfig().discord.channels.generic.allowDMCommands) {
-            DiscordClient.getInstance().getJda().getGuilds()
-                .forEach(guild -> {
-                    Member member = guild.getMember(user);
-                    if (member != null) {
-                        roles.addAll(member.getRoles());
-                    }
-                });
-        }
+        return CommandPermissionCache.getInstance().hasPermission(permissions, user, channel);
+    }
 
-        for (String permission : permissions) {
-            if (permission.startsWith("role:")) {
-                if (roles.size() > 0) {
-                    if (roles.stream().anyMatch(role -> role.getName().equalsIgnoreCase(permission.substring(5)) || role.getId().equals(permission.substring(5)))) {
-                        return true;
-                    }
-                }
-            } else if (permission.startsWith("user:")) {
-                if (user.getId().equals(permission.substring(5)) || (user.getName() + "#" + user.getDiscriminator()).equals(permission.substring(5))) {
-                    return true;
-                }
-            } else {
-                if (user.getId().equals(permission) || (user.getName() + "#" + user.getDiscriminator()).equals(permission)) {
-                    return true;
-                }
-            }
+    private CommandPermissions getPermissions() {
+        CommandPermissions permissions = this.compiledPermissions;
+        if (permissions == null || permissions.getSource() != this.permissions) {
+            permissions = CommandPermissions.compile(this.permissions);
+            this.compiledPermissions = permissions;
         }
-
-        return false;
+        return permissions;
     }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core.config.discord;
+
+import net.dv8tion.jda.core.entities.MessageChannel;
+import net.dv8tion.jda.core.entities.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Which Discord command to run for a command name, resolved once when the config is loaded.
+ *
+ * Every configured channel gets a map from lowercase command names and aliases to its own commands followed by the
+ * generic commands. Other channels and private messages use the generic commands only.
+ */
+public final class CommandIndex {
+    private static final CommandConfig[] NO_COMMANDS = new CommandConfig[0];
+
+    private final HashMap<String, CommandConfig[]> generic;
+    private final HashMap<Long, HashMap<String, CommandConfig[]>> channels;
+
+    private CommandIndex(HashMap<String, CommandConfig[]> generic, HashMap<Long, HashMap<String, CommandConfig[]>> channels) {
+        this.generic = generic;
+        this.channels = channels;
+    }
+
+    public static CommandIndex compile(DiscordMainChannelConfig config) {
+        HashMap<String, List<CommandConfig>> generic = new HashMap<>();
+        addCommands(generic, config.generic.commands);
+
+        HashMap<Long, HashMap<String, CommandConfig[]>> channels = new HashMap<>();
+        for (Map.Entry<Long, DiscordChannelConfig> entry : config.channels.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                continue;
+            }
+
+            HashMap<String, List<CommandConfig>> channel = new HashMap<>();
+            addCommands(channel, entry.getValue().commands);
+            addCommands(channel, config.generic.commands);
+            channels.put(entry.getKey(), toArrays(channel));
+        }
+
+        return new CommandIndex(toArrays(generic), channels);
+    }
+
+    private static void addCommands(HashMap<String, List<CommandConfig>> map, List<CommandConfig> commands) {
+        if (commands == null) {
+            return;
+        }
+
+        for (CommandConfig command : commands) {
+            if (command == null || command.getName() == null || !command.isEnabled()) {
+                continue;
+            }
+
+            command.compile();
+
+            add(map, command.getName().toLowerCase(Locale.ROOT), command);
+            if (command.getAliases() != null) {
+                for (String alias : command.getAliases()) {
+                    // Aliases have always been compared with the lowercase command name
+                    if (alias != null) {
+                        add(map, alias, command);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void add(HashMap<String, List<CommandConfig>> map, String key, CommandConfig command) {
+        List<CommandConfig> commands = map.computeIfAbsent(key, k -> new ArrayList<>(1));
+        if (!commands.contains(command)) {
+            commands.add(command);
+        }
+    }
+
+    private static HashMap<String, CommandConfig[]> toArrays(HashMap<String, List<CommandConfig>> map) {
+        HashMap<String, CommandConfig[]> arrays = new HashMap<>();
+        map.forEach((key, commands) -> arrays.put(key, commands.toArray(NO_COMMANDS)));
+        return arrays;
+    }
+
+    /**
+     * @param name      Command name or alias, any case
+     * @param channelId Channel the command was sent in, or null for a private message
+     * @param executor  User sending the command
+     * @param channel   Channel the command was sent in
+     * @return The first command with that name the user is allowed to execute, or null if there is none
+     */
+    public CommandConfig find(String name, Long channelId, User executor, MessageChannel channel) {
+        HashMap<String, CommandConfig[]> commands = channelId != null ? this.channels.get(channelId) : null;
+        if (commands == null) {
+            commands = this.generic;
+        }
+
+        CommandConfig[] candidates = commands.get(name.toLowerCase(Locale.ROOT));
+        if (candidates == null) {
+            return null;
+        }
+
+        for (CommandConfig command : candidates) {
+            if (command.hasPermission(executor, channel)) {
+                return command;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core.config.discord;
+
+import net.dv8tion.jda.core.entities.Role;
+import net.dv8tion.jda.core.entities.User;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The permissions of a command, like "role:Admin" or "user:123456789", sorted into sets once.
+ *
+ * "role:" is followed by a role id or name (any case). "user:", or nothing, is followed by a user id or name#discriminator.
+ */
+public final class CommandPermissions {
+    private final List<String> source;
+    private final HashSet<Long> roleIds = new HashSet<>();
+    private final HashSet<String> roleNames = new HashSet<>();
+    private final HashSet<Long> userIds = new HashSet<>();
+    private final HashSet<String> userTags = new HashSet<>();
+
+    private CommandPermissions(List<String> source) {
+        this.source = source;
+    }
+
+    public static CommandPermissions compile(List<String> permissions) {
+        CommandPermissions compiled = new CommandPermissions(permissions);
+        if (permissions == null) {
+            return compiled;
+        }
+
+        for (String permission : permissions) {
+            if (permission == null) {
+                continue;
+            }
+
+            if (permission.startsWith("role:")) {
+                String role = permission.substring(5);
+                Long roleId = parseId(role);
+                if (roleId != null) {
+                    compiled.roleIds.add(roleId);
+                }
+                compiled.roleNames.add(role.toLowerCase(Locale.ROOT));
+                continue;
+            }
+
+            String user = permission.startsWith("user:") ? permission.substring(5) : permission;
+            Long userId = parseId(user);
+            if (userId != null) {
+                compiled.userIds.add(userId);
+            } else {
+                compiled.userTags.add(user);
+            }
+        }
+
+        return compiled;
+    }
+
+    private static Long parseId(String text) {
+        // Ids were compared as text, so "0123" isn't the id 123
+        if (text.length() == 0 || text.length() > 19 || text.charAt(0) == '0') {
+            return null;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return null;
+            }
+        }
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    List<String> getSource() {
+        return source;
+    }
+
+    /**
+     * @return true, if anyone can execute the command
+     */
+    public boolean isEmpty() {
+        return this.roleNames.isEmpty() && this.userIds.isEmpty() && this.userTags.isEmpty();
+    }
+
+    /**
+     * @return true, if the user's roles have to be known to decide
+     */
+    public boolean hasRoles() {
+        return !this.roleNames.isEmpty();
+    }
+
+    public boolean allowsUser(User user) {
+        return this.userIds.contains(user.getIdLong())
+            || (this.userTags.size() > 0 && this.userTags.contains(user.getName() + "#" + user.getDiscriminator()));
+    }
+
+    public boolean allowsRoles(Collection<Role> roles) {
+        if (this.roleNames.isEmpty()) {
+            return false;
+        }
+
+        for (Role role : roles) {
+            if (this.roleIds.contains(role.getIdLong()) || this.roleNames.contains(role.getName().toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
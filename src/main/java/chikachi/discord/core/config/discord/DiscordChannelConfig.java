@@ -14,6 +14,7 @@
 
 package chikachi.discord.core.config.discord;
 
+import chikachi.discord.core.WebhookTarget;
 import com.google.gson.annotations.Since;
 
 import java.util.ArrayList;
@@ -26,11 +27,15 @@ public class DiscordChannelConfig extends DiscordChannelGenericConfig {
     @Since(3.0)
     public ArrayList<String> descriptions = new ArrayList<>();
 
+    private transient WebhookTarget webhookTarget;
+    private transient String webhookTargetSource;
+
     @Override
     public void fillFields() {
         if (this.webhook == null) {
             this.webhook = "";
         }
+        getWebhookTarget();
 
         if (this.updateDescription == null) {
             this.updateDescription = false;
@@ -41,4 +46,15 @@ public class DiscordChannelConfig extends DiscordChannelGenericConfig {
         }
         super.fillFields();
     }
+
+    /**
+     * @return The parsed webhook, or null if there is no webhook or the URL isn't valid
+     */
+    public WebhookTarget getWebhookTarget() {
+        if (this.webhookTargetSource != this.webhook) {
+            this.webhookTarget = WebhookTarget.parse(this.webhook);
+            this.webhookTargetSource = this.webhook;
+        }
+        return this.webhookTarget;
+    }
 }
@@ -29,6 +29,27 @@ public class DiscordConfig {
     @Since(3.0)
     public ArrayList<String> ignoresUsers = new ArrayList<>();
     @Since(3.0)
+    public boolean batchMessages = false;
+    @Since(3.0)
+    public int batchDelayMs = 250;
+    /**
+     * Longest a batched message waits while more messages keep coming
+     */
+    @Since(3.0)
+    public int batchMaxDelayMs = 1000;
+    /**
+     * Most Discord messages shown in Minecraft per server tick, the rest wait for the next tick
+     */
+    @Since(3.0)
+    public int inboundMessagesPerTick = 20;
+    /**
+     * Most Discord messages waiting to be shown in Minecraft, more are dropped
+     */
+    @Since(3.0)
+    public int inboundQueueSize = 1024;
+    @Since(3.0)
+    public DiscordFloodConfig flood = new DiscordFloodConfig();
+    @Since(3.0)
     public DiscordMainChannelConfig channels = new DiscordMainChannelConfig();
     @Since(3.0)
     public DiscordPresenceConfig presence = new DiscordPresenceConfig();
@@ -38,10 +59,31 @@ public class DiscordConfig {
             this.token = "";
         }
 
+        if (this.batchDelayMs < 0) {
+            this.batchDelayMs = 250;
+        }
+
+        if (this.batchMaxDelayMs < this.batchDelayMs) {
+            this.batchMaxDelayMs = Math.max(this.batchDelayMs, 1000);
+        }
+
+        if (this.inboundMessagesPerTick < 1) {
+            this.inboundMessagesPerTick = 20;
+        }
+
+        if (this.inboundQueueSize < 1) {
+            this.inboundQueueSize = 1024;
+        }
+
         if (this.ignoresUsers == null) {
             this.ignoresUsers = new ArrayList<>();
         }
 
+        if (this.flood == null) {
+            this.flood = new DiscordFloodConfig();
+        }
+        this.flood.fillFields();
+
         if (this.channels == null) {
             this.channels = new DiscordMainChannelConfig();
         }
@@ -56,13 +98,4 @@ public class DiscordConfig {
     public boolean isIgnoringUser(User user) {
         return ignoresUsers.contains(user.getId()) || ignoresUsers.contains(user.getName());
     }
-
-    public ArrayList<CommandConfig> getCommandConfigs() {
-        ArrayList<CommandConfig> list = new ArrayList<>();
-
-        list.addAll(channels.generic.commands);
-        channels.channels.forEach((key, value) -> list.addAll(value.commands));
-
-        return list;
-    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core.config.discord;
+
+import com.google.gson.annotations.Since;
+
+/**
+ * Limits how many Discord messages are shown in Minecraft, per channel and per user.
+ */
+public class DiscordFloodConfig {
+    @Since(3.0)
+    public boolean enabled = true;
+    /**
+     * Messages a channel can send at once
+     */
+    @Since(3.0)
+    public int channelBurst = 20;
+    @Since(3.0)
+    public double channelMessagesPerSecond = 5;
+    /**
+     * Messages a user can send at once
+     */
+    @Since(3.0)
+    public int userBurst = 5;
+    @Since(3.0)
+    public double userMessagesPerSecond = 1;
+    /**
+     * What to do with messages over the limit: "drop", "collapse" (show "(+N more messages from X)" later) or "delay"
+     */
+    @Since(3.0)
+    public String overflowPolicy = "collapse";
+    /**
+     * Most delayed messages per user in a channel, more are dropped
+     */
+    @Since(3.0)
+    public int maxDelayedMessages = 100;
+
+    public void fillFields() {
+        if (this.channelBurst < 1) {
+            this.channelBurst = 20;
+        }
+
+        if (this.channelMessagesPerSecond <= 0) {
+            this.channelMessagesPerSecond = 5;
+        }
+
+        if (this.userBurst < 1) {
+            this.userBurst = 5;
+        }
+
+        if (this.userMessagesPerSecond <= 0) {
+            this.userMessagesPerSecond = 1;
+        }
+
+        if (this.maxDelayedMessages < 0) {
+            this.maxDelayedMessages = 100;
+        }
+
+        if (this.overflowPolicy == null) {
+            this.overflowPolicy = "collapse";
+        }
+
+        if (this.overflowPolicy.equalsIgnoreCase("drop")) {
+            this.overflowPolicy = "drop";
+        } else if (this.overflowPolicy.equalsIgnoreCase("delay")) {
+            this.overflowPolicy = "delay";
+        } else {
+            this.overflowPolicy = "collapse";
+        }
+    }
+
+    public boolean isDropping() {
+        return this.overflowPolicy.equals("drop");
+    }
+
+    public boolean isDelaying() {
+        return this.overflowPolicy.equals("delay");
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core.config.emotes;
+
+import chikachi.discord.core.CoreConstants;
+import chikachi.discord.core.EmoteTranslator;
+import com.google.gson.annotations.Since;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class EmotesConfig {
+    @Since(3.0)
+    public boolean enabled = true;
+    /**
+     * Emoticon typed in Minecraft -> Discord emoji alias
+     */
+    @Since(3.0)
+    public LinkedHashMap<String, String> minecraftToDiscord;
+    /**
+     * Discord emoji alias -> emoticon shown in Minecraft. Defaults to the reverse of minecraftToDiscord.
+     */
+    @Since(3.0)
+    public LinkedHashMap<String, String> discordToMinecraft;
+    /**
+     * Replace the emoji aliases in minecraftToDiscord without going through the emoji library
+     */
+    @Since(3.0)
+    public boolean emojiAliasTable = true;
+
+    private transient EmoteTranslator minecraftToDiscordTranslator = EmoteTranslator.EMPTY;
+    private transient EmoteTranslator discordToMinecraftTranslator = EmoteTranslator.EMPTY;
+
+    public void fillFields() {
+        if (this.minecraftToDiscord == null) {
+            this.minecraftToDiscord = new LinkedHashMap<>(new TreeMap<>(CoreConstants.minecraftToDiscordEmotes));
+        }
+
+        if (this.discordToMinecraft == null) {
+            this.discordToMinecraft = new LinkedHashMap<>();
+            for (Map.Entry<String, String> entry : this.minecraftToDiscord.entrySet()) {
+                this.discordToMinecraft.putIfAbsent(entry.getValue(), entry.getKey());
+            }
+        }
+
+        this.minecraftToDiscordTranslator = EmoteTranslator.compile(this.minecraftToDiscord);
+        this.discordToMinecraftTranslator = EmoteTranslator.compile(this.discordToMinecraft);
+    }
+
+    public EmoteTranslator getMinecraftToDiscord() {
+        return this.enabled ? this.minecraftToDiscordTranslator : EmoteTranslator.EMPTY;
+    }
+
+    public EmoteTranslator getDiscordToMinecraft() {
+        return this.enabled ? this.discordToMinecraftTranslator : EmoteTranslator.EMPTY;
+    }
+}
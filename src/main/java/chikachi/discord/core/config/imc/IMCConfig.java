@@ -26,6 +26,34 @@ public class IMCConfig {
     public String mode = "whitelist";
     @Since(3.0)
     public List<String> list = new ArrayList<>();
+    /**
+     * Events waiting to be sent to a subscribed mod, before new events for it are dropped
+     */
+    @Since(3.0)
+    public int queueSize = 256;
+    /**
+     * Events sent to each subscribed mod per server tick
+     */
+    @Since(3.0)
+    public int eventsPerTick = 20;
+    /**
+     * Discord messages a mod can send at once with sendMessage
+     */
+    @Since(3.0)
+    public int sendBurst = 5;
+    @Since(3.0)
+    public double sendMessagesPerSecond = 0.5;
+    /**
+     * Ticks a message from a mod waits for more messages to the same channel, to send them as one Discord message.
+     * Priority messages don't wait.
+     */
+    @Since(3.0)
+    public int sendBatchTicks = 20;
+    /**
+     * Messages from a mod waiting to be sent, before new messages from it are refused
+     */
+    @Since(3.0)
+    public int sendQueueSize = 100;
 
     public void fillFields() {
         if (this.mode == null) {
@@ -41,6 +69,30 @@ public class IMCConfig {
         if (this.list == null) {
             this.list = new ArrayList<>();
         }
+
+        if (this.queueSize < 1) {
+            this.queueSize = 256;
+        }
+
+        if (this.eventsPerTick < 1) {
+            this.eventsPerTick = 20;
+        }
+
+        if (this.sendBurst < 1) {
+            this.sendBurst = 5;
+        }
+
+        if (this.sendMessagesPerSecond <= 0) {
+            this.sendMessagesPerSecond = 0.5;
+        }
+
+        if (this.sendBatchTicks < 0) {
+            this.sendBatchTicks = 20;
+        }
+
+        if (this.sendQueueSize < 1) {
+            this.sendQueueSize = 100;
+        }
     }
 
     public boolean isAllowed(String modId) {
@@ -14,6 +14,7 @@
 
 package chikachi.discord.core.config.linking;
 
+import chikachi.discord.core.PlayerIdentityCache;
 import chikachi.discord.core.config.Configuration;
 import com.google.gson.annotations.Since;
 
@@ -35,6 +36,7 @@ public class LinkingWrapper {
         linkingWrapper.linked.put(minecraftUUID, request.getDiscordId());
         linkingWrapper.requests.remove(request);
         Configuration.saveLinking();
+        PlayerIdentityCache.getInstance().invalidate(minecraftUUID);
     }
 
     public boolean isLinked(UUID minecraftId, long discordId) {
@@ -84,5 +86,6 @@ public class LinkingWrapper {
     public void removeLink(UUID minecraftUUID) {
         this.linked.remove(minecraftUUID);
         Configuration.saveLinking();
+        PlayerIdentityCache.getInstance().invalidate(minecraftUUID);
     }
 }
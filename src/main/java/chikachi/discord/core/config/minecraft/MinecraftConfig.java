@@ -21,6 +21,8 @@ public class MinecraftConfig {
     public MinecraftMainDimensionConfig dimensions = new MinecraftMainDimensionConfig();
     @Since(3.0)
     public MinecraftIntegrationConfig integrations = new MinecraftIntegrationConfig();
+    @Since(3.0)
+    public MinecraftRelayConfig relay = new MinecraftRelayConfig();
 
     public void fillFields() {
         if (this.dimensions == null) {
@@ -31,5 +33,10 @@ public class MinecraftConfig {
         if (this.integrations == null) {
             this.integrations = new MinecraftIntegrationConfig();
         }
+
+        if (this.relay == null) {
+            this.relay = new MinecraftRelayConfig();
+        }
+        this.relay.fillFields();
     }
 }
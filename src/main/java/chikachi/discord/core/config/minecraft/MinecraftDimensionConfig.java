@@ -14,6 +14,7 @@
 
 package chikachi.discord.core.config.minecraft;
 
+import chikachi.discord.core.RelayEvent;
 import chikachi.discord.core.config.types.ChannelConfigType;
 import com.google.gson.annotations.Since;
 
@@ -82,4 +83,23 @@ public class MinecraftDimensionConfig {
         }
         this.messages.fillFields();
     }
+
+    public ChannelConfigType getRelayChannels(RelayEvent.Type type) {
+        switch (type) {
+            case CHAT:
+                return this.relayChat;
+            case COMMAND:
+                return this.relayCommands;
+            case ACHIEVEMENT:
+                return this.relayAchievements;
+            case PLAYER_JOIN:
+                return this.relayPlayerJoin;
+            case PLAYER_LEAVE:
+                return this.relayPlayerLeave;
+            case PLAYER_DEATH:
+                return this.relayPlayerDeath;
+            default:
+                throw new IllegalArgumentException("Unknown event type " + type);
+        }
+    }
 }
@@ -14,12 +14,16 @@
 
 package chikachi.discord.core.config.minecraft;
 
+import chikachi.discord.core.IgnoreFilter;
 import chikachi.discord.core.config.types.ChannelConfigType;
 import com.google.gson.annotations.Since;
 
+import java.util.Arrays;
 import java.util.regex.Pattern;
 
 public class MinecraftGenericConfig extends MinecraftDimensionConfig {
+    public static final String LIST_HELP_COMMANDS = "(?i)^(list|help)(\\s|$)";
+
     @Since(3.0)
     public boolean ignoreFakePlayerChat = true;
     @Since(3.0)
@@ -32,8 +36,13 @@ public class MinecraftGenericConfig extends MinecraftDimensionConfig {
     public boolean canMentionHere = false;
     @Since(3.0)
     public Pattern[] messageIgnoreRegex = new Pattern[0];
+    /**
+     * Checked against the command name followed by its arguments
+     */
     @Since(3.0)
-    public Pattern[] commandIgnoreRegex = new Pattern[0];
+    public Pattern[] commandIgnoreRegex = new Pattern[]{
+        Pattern.compile(LIST_HELP_COMMANDS)
+    };
     @Since(3.0)
     public ChannelConfigType relayServerStart = new ChannelConfigType();
     @Since(3.0)
@@ -41,6 +50,9 @@ public class MinecraftGenericConfig extends MinecraftDimensionConfig {
     @Since(3.0)
     public ChannelConfigType relayServerCrash = new ChannelConfigType();
 
+    private transient IgnoreFilter messageFilter = IgnoreFilter.EMPTY;
+    private transient IgnoreFilter commandFilter = IgnoreFilter.EMPTY;
+
     public void fillFields() {
         super.fillFields();
 
@@ -55,32 +67,51 @@ public class MinecraftGenericConfig extends MinecraftDimensionConfig {
         if (this.relayServerCrash == null) {
             this.relayServerCrash = new ChannelConfigType();
         }
-    }
 
-    public boolean isMessageIgnored(String message) {
-        if (this.messageIgnoreRegex.length > 0) {
-            Pattern[] ignoreRegex = this.messageIgnoreRegex;
-            return containsPatterns(message, ignoreRegex);
+        if (this.messageIgnoreRegex == null) {
+            this.messageIgnoreRegex = new Pattern[0];
         }
-        return false;
-    }
 
-    public boolean isCommandIgnored(String message) {
-        if (this.commandIgnoreRegex.length > 0) {
-            Pattern[] ignoreRegex = this.commandIgnoreRegex;
-            return containsPatterns(message, ignoreRegex);
+        if (this.commandIgnoreRegex == null) {
+            this.commandIgnoreRegex = new Pattern[0];
         }
-        return false;
+
+        this.messageFilter = IgnoreFilter.compile(this.messageIgnoreRegex);
+        this.commandFilter = IgnoreFilter.compile(this.commandIgnoreRegex);
     }
 
-    private boolean containsPatterns(String message, Pattern[] ignoreRegex) {
-        for (Pattern anIgnoreRegex : ignoreRegex) {
-            if (anIgnoreRegex != null) {
-                if (anIgnoreRegex.matcher(message).find()) {
-                    return true;
-                }
+    /**
+     * Add a command ignore rule, unless there already is one with the same regex.
+     */
+    public void addCommandIgnoreRegex(String regex) {
+        for (Pattern pattern : this.commandIgnoreRegex) {
+            if (pattern != null && pattern.pattern().equals(regex)) {
+                return;
             }
         }
-        return false;
+
+        Pattern[] patterns = Arrays.copyOf(this.commandIgnoreRegex, this.commandIgnoreRegex.length + 1);
+        patterns[patterns.length - 1] = Pattern.compile(regex);
+        this.commandIgnoreRegex = patterns;
+        this.commandFilter = IgnoreFilter.compile(patterns);
+    }
+
+    public boolean isMessageIgnored(String message) {
+        return this.messageFilter.matches(message);
+    }
+
+    /**
+     * @param command Command name followed by its arguments
+     */
+    public boolean isCommandIgnored(String command) {
+        return this.commandFilter.matches(command);
+    }
+
+    public IgnoreFilter getMessageFilter() {
+        return this.messageFilter;
+    }
+
+    public IgnoreFilter getCommandFilter() {
+        return this.commandFilter;
     }
 }
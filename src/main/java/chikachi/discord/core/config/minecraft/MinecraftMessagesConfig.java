@@ -14,6 +14,7 @@
 
 package chikachi.discord.core.config.minecraft;
 
+import chikachi.discord.core.RelayEvent;
 import chikachi.discord.core.config.types.MessageConfig;
 import com.google.gson.annotations.Since;
 
@@ -143,4 +144,23 @@ public class MinecraftMessagesConfig {
             this.serverCrash = new MessageConfig(SERVER_CRASH);
         }
     }
+
+    public MessageConfig getMessage(RelayEvent.Type type) {
+        switch (type) {
+            case CHAT:
+                return this.chatMessage;
+            case COMMAND:
+                return this.command;
+            case ACHIEVEMENT:
+                return this.achievement;
+            case PLAYER_JOIN:
+                return this.playerJoin;
+            case PLAYER_LEAVE:
+                return this.playerLeave;
+            case PLAYER_DEATH:
+                return this.playerDeath;
+            default:
+                throw new IllegalArgumentException("Unknown event type " + type);
+        }
+    }
 }
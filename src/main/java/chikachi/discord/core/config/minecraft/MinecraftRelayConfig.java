@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core.config.minecraft;
+
+import com.google.gson.annotations.Since;
+
+public class MinecraftRelayConfig {
+    private transient static final int QUEUE_SIZE = 1024;
+    private transient static final int WORKER_THREADS = 1;
+
+    @Since(3.0)
+    public int queueSize = QUEUE_SIZE;
+    /**
+     * More than one worker relays faster under load, but messages can then reach Discord out of order.
+     */
+    @Since(3.0)
+    public int workerThreads = WORKER_THREADS;
+    /**
+     * What to do when the queue is full: "dropNewest", "dropOldest" or "callerRuns" (relay on the server thread).
+     */
+    @Since(3.0)
+    public String overflowPolicy = "dropNewest";
+
+    public void fillFields() {
+        if (this.queueSize < 1) {
+            this.queueSize = QUEUE_SIZE;
+        }
+
+        if (this.workerThreads < 1) {
+            this.workerThreads = WORKER_THREADS;
+        }
+
+        if (this.overflowPolicy == null) {
+            this.overflowPolicy = "dropNewest";
+        }
+
+        if (this.overflowPolicy.equalsIgnoreCase("oldest") || this.overflowPolicy.equalsIgnoreCase("dropOldest")) {
+            this.overflowPolicy = "dropOldest";
+        } else if (this.overflowPolicy.equalsIgnoreCase("caller") || this.overflowPolicy.equalsIgnoreCase("callerRuns") || this.overflowPolicy.equalsIgnoreCase("sync")) {
+            this.overflowPolicy = "callerRuns";
+        } else {
+            this.overflowPolicy = "dropNewest";
+        }
+    }
+
+    public boolean isDroppingOldest() {
+        return this.overflowPolicy.equalsIgnoreCase("dropOldest");
+    }
+
+    public boolean isCallerRuns() {
+        return this.overflowPolicy.equalsIgnoreCase("callerRuns");
+    }
+}
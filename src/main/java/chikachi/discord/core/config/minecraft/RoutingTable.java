@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core.config.minecraft;
+
+import chikachi.discord.core.RelayEvent;
+import chikachi.discord.core.config.types.MessageConfig;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Where each Minecraft event should be relayed to, resolved once when the config is loaded.
+ *
+ * Resolving the channels of an event means walking the dimension's and the generic config's relay and discordChannel
+ * settings, with their default and disabled flags. This table does that for every configured dimension and event type
+ * up front, so looking up a route is a probe in a small open addressing table and doesn't allocate.
+ */
+public final class RoutingTable {
+    private static final long[] NO_CHANNELS = new long[0];
+    private static final RelayEvent.Type[] TYPES = RelayEvent.Type.values();
+
+    private final Route[] noDimension;
+    private final Route[] fallback;
+    private final int[] keys;
+    private final Route[][] routes;
+    private final int mask;
+
+    private RoutingTable(Route[] noDimension, Route[] fallback, int[] keys, Route[][] routes) {
+        this.noDimension = noDimension;
+        this.fallback = fallback;
+        this.keys = keys;
+        this.routes = routes;
+        this.mask = keys.length - 1;
+    }
+
+    public static RoutingTable compile(MinecraftMainDimensionConfig config) {
+        MinecraftGenericConfig genericConfig = config.generic;
+
+        Route[] noDimension = new Route[TYPES.length];
+        for (RelayEvent.Type type : TYPES) {
+            noDimension[type.ordinal()] = new Route(
+                toArray(genericConfig.getRelayChannels(type).getChannels(genericConfig.discordChannel)),
+                genericConfig.messages.getMessage(type),
+                genericConfig.chatPrefix
+            );
+        }
+
+        int capacity = 2;
+        while (capacity < config.dimensions.size() * 2) {
+            capacity <<= 1;
+        }
+
+        int[] keys = new int[capacity];
+        Route[][] routes = new Route[capacity][];
+
+        for (Map.Entry<Integer, MinecraftDimensionConfig> entry : config.dimensions.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                continue;
+            }
+
+            int index = hash(entry.getKey()) & (capacity - 1);
+            while (routes[index] != null) {
+                index = (index + 1) & (capacity - 1);
+            }
+
+            keys[index] = entry.getKey();
+            routes[index] = compileDimension(entry.getValue(), genericConfig);
+        }
+
+        return new RoutingTable(noDimension, compileDimension(genericConfig, genericConfig), keys, routes);
+    }
+
+    private static Route[] compileDimension(MinecraftDimensionConfig dimensionConfig, MinecraftGenericConfig genericConfig) {
+        String prefix = dimensionConfig.chatPrefix != null && dimensionConfig.chatPrefix.trim().length() > 0 ? dimensionConfig.chatPrefix : genericConfig.chatPrefix;
+
+        Route[] routes = new Route[TYPES.length];
+        for (RelayEvent.Type type : TYPES) {
+            MessageConfig messageConfig = dimensionConfig.messages.getMessage(type);
+
+            routes[type.ordinal()] = new Route(
+                toArray(
+                    dimensionConfig.getRelayChannels(type).getChannels(
+                        genericConfig.getRelayChannels(type).getChannels(
+                            dimensionConfig.discordChannel.getChannels(
+                                genericConfig.discordChannel
+                            )
+                        )
+                    )
+                ),
+                messageConfig != null ? messageConfig : genericConfig.messages.getMessage(type),
+                prefix
+            );
+        }
+        return routes;
+    }
+
+    private static long[] toArray(ArrayList<Long> channels) {
+        if (channels == null || channels.size() == 0) {
+            return NO_CHANNELS;
+        }
+
+        long[] array = new long[channels.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = channels.get(i);
+        }
+        return array;
+    }
+
+    private static int hash(int dimension) {
+        int h = dimension * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @param type Type of the event
+     * @return Route for an event that doesn't happen in a world, such as a command from the console
+     */
+    public Route getRoute(RelayEvent.Type type) {
+        return this.noDimension[type.ordinal()];
+    }
+
+    /**
+     * @param dimension Dimension the event happened in
+     * @param type      Type of the event
+     * @return Route for the dimension, or the generic route if the dimension has no config of its own
+     */
+    public Route getRoute(int dimension, RelayEvent.Type type) {
+        int index = hash(dimension) & this.mask;
+        Route[] dimensionRoutes;
+        while ((dimensionRoutes = this.routes[index]) != null) {
+            if (this.keys[index] == dimension) {
+                return dimensionRoutes[type.ordinal()];
+            }
+            index = (index + 1) & this.mask;
+        }
+        return this.fallback[type.ordinal()];
+    }
+
+    public static final class Route {
+        private final long[] channels;
+        private final MessageConfig message;
+        private final String chatPrefix;
+
+        private Route(long[] channels, MessageConfig message, String chatPrefix) {
+            this.channels = channels;
+            this.message = message;
+            this.chatPrefix = chatPrefix;
+
+            if (message != null) {
+                // Parse the templates now instead of on the first relayed event
+                message.getNormalTemplate();
+                message.getWebhookTemplate();
+            }
+        }
+
+        /**
+         * @return Channels to relay to. Empty if relaying is disabled. Don't modify the array.
+         */
+        public long[] getChannels() {
+            return channels;
+        }
+
+        public MessageConfig getMessage() {
+            return message;
+        }
+
+        public String getChatPrefix() {
+            return chatPrefix;
+        }
+    }
+}
@@ -15,12 +15,18 @@
 package chikachi.discord.core.config.types;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class DimensionConfigType {
+    private static final int[] ALL_DIMENSIONS = new int[0];
+
     private ArrayList<Integer> dimensions;
     private boolean isDefault;
     private boolean isDisabled;
 
+    private transient ArrayList<Integer> compiledSource;
+    private transient int[] compiled;
+
     public DimensionConfigType() {
         this(false);
     }
@@ -41,6 +47,7 @@ public class DimensionConfigType {
 
     public DimensionConfigType addDimension(int dimension) {
         this.dimensions.add(dimension);
+        this.compiledSource = null;
         return this;
     }
 
@@ -56,6 +63,39 @@ public class DimensionConfigType {
         return getDimensions(defaultDimensions.dimensions);
     }
 
+    /**
+     * Like {@link #getDimensions(DimensionConfigType)}, as sorted dimension ids that are only computed once.
+     *
+     * @return null if disabled, empty for all dimensions. Don't modify the array.
+     */
+    public int[] getDimensionIds(DimensionConfigType defaultDimensions) {
+        if (isDisabled()) {
+            return null;
+        }
+        return isDefault() ? defaultDimensions.getDimensionIds() : getDimensionIds();
+    }
+
+    private int[] getDimensionIds() {
+        ArrayList<Integer> dimensions = this.dimensions;
+        if (dimensions == null || dimensions.isEmpty()) {
+            return ALL_DIMENSIONS;
+        }
+
+        int[] compiled = this.compiled;
+        if (compiled == null || this.compiledSource != dimensions) {
+            compiled = dimensions.stream()
+                .filter(dimension -> dimension != null)
+                .mapToInt(Integer::intValue)
+                .distinct()
+                .toArray();
+            Arrays.sort(compiled);
+
+            this.compiled = compiled;
+            this.compiledSource = dimensions;
+        }
+        return compiled;
+    }
+
     public DimensionConfigType setDimensions(ArrayList<Integer> dimensions) {
         if (dimensions != null) {
             this.dimensions = dimensions;
@@ -14,10 +14,15 @@
 
 package chikachi.discord.core.config.types;
 
+import chikachi.discord.core.TextTemplate;
+
 public class MessageConfig {
     public String normal;
     public String webhook;
 
+    private transient TextTemplate normalTemplate;
+    private transient TextTemplate webhookTemplate;
+
     public MessageConfig(String normal) {
         this.normal = normal;
         this.webhook = normal;
@@ -27,4 +32,28 @@ public class MessageConfig {
         this.normal = normal;
         this.webhook = webhook;
     }
+
+    /**
+     * @return The normal message compiled, recompiled only if the message was changed since the last call
+     */
+    public TextTemplate getNormalTemplate() {
+        TextTemplate template = this.normalTemplate;
+        if (template == null || template.getSource() != this.normal) {
+            template = TextTemplate.compile(this.normal);
+            this.normalTemplate = template;
+        }
+        return template;
+    }
+
+    /**
+     * @return The webhook message compiled, recompiled only if the message was changed since the last call
+     */
+    public TextTemplate getWebhookTemplate() {
+        TextTemplate template = this.webhookTemplate;
+        if (template == null || template.getSource() != this.webhook) {
+            template = TextTemplate.compile(this.webhook);
+            this.webhookTemplate = template;
+        }
+        return template;
+    }
 }
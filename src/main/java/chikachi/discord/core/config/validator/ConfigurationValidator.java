@@ -14,6 +14,7 @@ public abstract class ConfigurationValidator {
         addRule(new ChannelCommandPrefixEmptyRule());
         addRule(new ChannelDescriptionsEnabledButEmptyRule());
         addRule(new ChannelRelayChatTrueButMessageEmptyRule());
+        addRule(new ChannelWebhookInvalidRule());
         addRule(new MinecraftChatPrefixTooLongRule());
         addRule(new IMCEnabledAndBlacklistEmptyRule());
     }
@@ -0,0 +1,35 @@
+package chikachi.discord.core.config.validator.rules;
+
+import chikachi.discord.core.config.Configuration;
+import chikachi.discord.core.config.validator.IConfigurationValidationRule;
+import chikachi.discord.core.config.validator.ValidationResult;
+import com.google.common.base.Joiner;
+
+import java.util.Map;
+
+public class ChannelWebhookInvalidRule implements IConfigurationValidationRule {
+    private String getHint() {
+        return "For at least one channel the 'webhook' entry is not a valid webhook URL, messages are sent by the bot instead. " +
+            "Copy the URL from the channel's webhook settings (e.g. 'https://discord.com/api/webhooks/<id>/<token>') or leave it empty.";
+    }
+
+    @Override
+    public ValidationResult validate() {
+        Object[] channelIDs = Configuration.getConfig().discord.channels.channels.entrySet()
+            .stream()
+            .filter(entry -> entry.getValue() != null && entry.getKey() != null)
+            .filter(entry -> entry.getValue().webhook.trim().length() > 0)
+            .filter(entry -> entry.getValue().getWebhookTarget() == null)
+            .map(Map.Entry::getKey)
+            .toArray();
+
+        if (channelIDs.length == 0) {
+            return new ValidationResult(true, null);
+        } else {
+            return new ValidationResult(
+                false,
+                getHint() + " Channel(s): " + Joiner.on(", ").join(channelIDs)
+            );
+        }
+    }
+}
@@ -15,9 +15,9 @@
 package chikachi.discord.listener;
 
 import chikachi.discord.DiscordCommandSender;
-import chikachi.discord.IMCHandler;
+import chikachi.discord.FloodGate;
+import chikachi.discord.IMCSubscriptions;
 import chikachi.discord.core.DiscordClient;
-import chikachi.discord.core.DiscordIntegrationLogger;
 import chikachi.discord.core.Message;
 import chikachi.discord.core.Patterns;
 import chikachi.discord.core.config.ConfigWrapper;
@@ -32,10 +32,8 @@ import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.ChannelType;
 import net.dv8tion.jda.core.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.core.hooks.ListenerAdapter;
-import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.server.MinecraftServer;
-import net.minecraft.util.ChatComponentText;
 
 import java.util.*;
 
@@ -66,12 +64,12 @@ public class DiscordListener extends ListenerAdapter {
             Long channelId = event.getChannel().getIdLong();
 
             DiscordChannelGenericConfig channelConfig;
-            ArrayList<Integer> dimensions;
+            int[] dimensions;
             boolean stripMinecraftCodes = discordConfig.channels.generic.stripMinecraftCodes;
 
             if (discordConfig.channels.channels.containsKey(channelId)) {
                 channelConfig = discordConfig.channels.channels.get(channelId);
-                dimensions = channelConfig.relayChat.getDimensions(discordConfig.channels.generic.relayChat);
+                dimensions = channelConfig.relayChat.getDimensionIds(discordConfig.channels.generic.relayChat);
                 if (channelConfig.stripMinecraftCodes != null) {
                     stripMinecraftCodes = channelConfig.stripMinecraftCodes;
                 }
@@ -84,9 +82,11 @@ public class DiscordListener extends ListenerAdapter {
                 return;
             }
 
-            if (IMCHandler.haveListeners()) {
+            // Only built if a subscribed mod wants chat from this channel
+            IMCSubscriptions.getInstance().emit("chat", channelId, () -> {
                 NBTTagCompound eventTagCompound = new NBTTagCompound();
                 eventTagCompound.setString("type", "chat");
+                eventTagCompound.setString("channel", Long.toString(channelId));
 
                 NBTTagCompound userTagComponent = new NBTTagCompound();
                 userTagComponent.setString("id", event.getAuthor().getId());
@@ -97,63 +97,52 @@ public class DiscordListener extends ListenerAdapter {
                 eventTagCompound.setTag("user", userTagComponent);
                 eventTagCompound.setString("message", content);
 
-                IMCHandler.emitMessage("event", eventTagCompound);
-            }
+                return eventTagCompound;
+            });
 
             String prefix = channelConfig.commandPrefix != null ? channelConfig.commandPrefix : discordConfig.channels.generic.commandPrefix;
             if (content.startsWith(prefix)) {
                 List<String> args = new ArrayList<>(Arrays.asList(content.substring(prefix.length()).split(" ")));
-                tryExecuteCommand(event, args);
+                tryExecuteCommand(event, channelId, args);
                 return;
             }
 
-            MinecraftServer minecraftServer = MinecraftServer.getServer();
-            final List<EntityPlayerMP> players = new ArrayList<>();
-            if (dimensions.size() == 0) {
-                //noinspection unchecked
-                minecraftServer.getConfigurationManager().playerEntityList
-                    .forEach(playerEntity -> {
-                        if (playerEntity instanceof EntityPlayerMP) {
-                            players.add((EntityPlayerMP) playerEntity);
-                        }
-                    });
-            } else {
-                //noinspection unchecked
-                minecraftServer.getConfigurationManager().playerEntityList
-                    .stream()
-                    .filter(playerEntity -> playerEntity instanceof EntityPlayerMP && dimensions.contains(((EntityPlayerMP) playerEntity).dimension))
-                    .forEach(player -> players.add((EntityPlayerMP) player));
-            }
-
-            if (stripMinecraftCodes) {
-                content = Patterns.minecraftCodePattern.matcher(content).replaceAll("");
-            }
-
-            HashMap<String, String> arguments = new HashMap<>();
-            arguments.put(
-                "MESSAGE",
-                content
+            String text = stripMinecraftCodes ? Patterns.minecraftCodePattern.matcher(content).replaceAll("") : content;
+            String author = event.getMember().getEffectiveName();
+
+            // Only formatted if the message isn't dropped by flood control
+            FloodGate.getInstance().submit(
+                channelId,
+                event.getAuthor().getIdLong(),
+                author,
+                () -> {
+                    HashMap<String, String> arguments = new HashMap<>();
+                    arguments.put(
+                        "MESSAGE",
+                        text
+                    );
+
+                    return new Message()
+                        .setAuthor(author)
+                        .setMessage(config.discord.channels.generic.messages.chatMessage)
+                        .setArguments(arguments)
+                        .getFormattedTextMinecraft();
+                },
+                dimensions
             );
-
-            Message message = new Message()
-                .setAuthor(event.getMember().getEffectiveName())
-                .setMessage(config.discord.channels.generic.messages.chatMessage)
-                .setArguments(arguments);
-
-            DiscordIntegrationLogger.Log(message.getFormattedTextMinecraft());
-            for (EntityPlayerMP player : players) {
-                player.addChatMessage(new ChatComponentText(message.getFormattedTextMinecraft()));
-            }
         } else if (event.getChannelType() == ChannelType.PRIVATE && Configuration.getConfig().discord.channels.generic.allowDMCommands) {
             String prefix = discordConfig.channels.generic.commandPrefix;
             if (content.startsWith(prefix)) {
                 List<String> args = new ArrayList<>(Arrays.asList(content.substring(prefix.length()).split(" ")));
-                tryExecuteCommand(event, args);
+                tryExecuteCommand(event, null, args);
             }
         }
     }
 
-    private void tryExecuteCommand(MessageReceivedEvent event, List<String> args) {
+    /**
+     * @param channelId Channel the command was sent in, or null for a private message
+     */
+    private void tryExecuteCommand(MessageReceivedEvent event, Long channelId, List<String> args) {
         MinecraftServer minecraftServer = FMLCommonHandler.instance().getMinecraftServerInstance();
         String cmd = args.remove(0);
 
@@ -216,15 +205,12 @@ public class DiscordListener extends ListenerAdapter {
             }
         }
 
-        List<CommandConfig> commands = Configuration.getConfig().discord.getCommandConfigs();
-        for (CommandConfig command : commands) {
-            if (command.shouldExecute(cmd, event.getAuthor(), event.getChannel())) {
-                FMLCommonHandler.instance().getMinecraftServerInstance().getCommandManager().executeCommand(
-                    new DiscordCommandSender(event.getChannel(), event.getAuthor()),
-                    command.buildCommand(args)
-                );
-                return;
-            }
+        CommandConfig command = Configuration.getCommands().find(cmd, channelId, event.getAuthor(), event.getChannel());
+        if (command != null) {
+            FMLCommonHandler.instance().getMinecraftServerInstance().getCommandManager().executeCommand(
+                new DiscordCommandSender(event.getChannel(), event.getAuthor()),
+                command.buildCommand(args)
+            );
         }
     }
 }
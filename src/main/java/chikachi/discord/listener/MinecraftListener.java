@@ -14,18 +14,16 @@
 
 package chikachi.discord.listener;
 
-import chikachi.discord.core.CoreUtils;
-import chikachi.discord.core.DiscordClient;
-import chikachi.discord.core.Message;
+import chikachi.discord.PlayerRegistry;
+import chikachi.discord.core.PlayerIdentityCache;
+import chikachi.discord.core.RelayEvent;
+import chikachi.discord.core.RelayPipeline;
 import chikachi.discord.core.config.Configuration;
-import chikachi.discord.core.config.minecraft.MinecraftConfig;
-import chikachi.discord.core.config.minecraft.MinecraftDimensionConfig;
-import chikachi.discord.core.config.types.MessageConfig;
+import chikachi.discord.core.config.minecraft.MinecraftGenericConfig;
 import com.google.common.base.Joiner;
 import cpw.mods.fml.common.eventhandler.EventPriority;
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
 import cpw.mods.fml.common.gameevent.PlayerEvent;
-import net.dv8tion.jda.core.entities.User;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLivingBase;
@@ -41,8 +39,8 @@ import net.minecraftforge.event.entity.living.LivingDeathEvent;
 import net.minecraftforge.event.entity.player.AchievementEvent;
 import scala.util.Random;
 
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.UUID;
 
 public class MinecraftListener {
     @SubscribeEvent(priority = EventPriority.LOWEST)
@@ -52,172 +50,68 @@ public class MinecraftListener {
         String commandName = event.command.getCommandName();
         ICommandSender sender = event.sender;
 
-        MinecraftConfig minecraftConfig = Configuration.getConfig().minecraft;
-        MinecraftDimensionConfig genericConfig = minecraftConfig.dimensions.generic;
+        MinecraftGenericConfig genericConfig = Configuration.getConfig().minecraft.dimensions.generic;
 
-        MessageConfig messageConfig;
+        String commandArguments = Joiner.on(" ").join(event.parameters);
+        if (genericConfig.isCommandIgnored(commandArguments.length() > 0 ? commandName + " " + commandArguments : commandName)) {
+            return;
+        }
+
+        Integer dimension = null;
+        UUID playerId = null;
+        String senderName = null;
+        String ignoreText = null;
+
+        if (sender != null) {
+            senderName = sender.getCommandSenderName();
+
+            Entity entity = sender.getEntityWorld().getPlayerEntityByName(senderName);
+            if (entity != null) {
+                dimension = entity.dimension;
+            }
+
+            if (sender instanceof EntityPlayer) {
+                playerId = ((EntityPlayer) sender).getGameProfile().getId();
+            }
+        }
 
         if (commandName.equalsIgnoreCase("say") || commandName.equalsIgnoreCase("me")) {
             boolean isSayCommand = commandName.equalsIgnoreCase("say");
 
-            if (isSayCommand && !Configuration.getConfig().minecraft.dimensions.generic.relaySayCommand) {
+            if (isSayCommand && !genericConfig.relaySayCommand) {
                 return;
             }
 
-            if (!isSayCommand && !Configuration.getConfig().minecraft.dimensions.generic.relayMeCommand) {
+            if (!isSayCommand && !genericConfig.relayMeCommand) {
                 return;
             }
 
-            if (sender != null && Configuration.getConfig().minecraft.dimensions.generic.ignoreFakePlayerChat && sender instanceof FakePlayer) {
+            if (sender != null && genericConfig.ignoreFakePlayerChat && sender instanceof FakePlayer) {
                 return;
             }
 
-            String message = Joiner.on(" ").join(event.parameters);
-
-            if (Configuration.getConfig().minecraft.dimensions.generic.isMessageIgnored(message)) {
-                return;
-            }
+            String message = commandArguments;
+            ignoreText = message;
 
             HashMap<String, String> arguments = new HashMap<>();
             arguments.put("MESSAGE", isSayCommand ? message : "_" + message + "_");
 
-            String prefix = minecraftConfig.dimensions.generic.chatPrefix;
-            messageConfig = minecraftConfig.dimensions.generic.messages.chatMessage;
-
-            ArrayList<Long> channels;
-
-            if (sender != null) {
-                Entity entity = sender.getEntityWorld().getPlayerEntityByName(sender.getCommandSenderName());
-
-                if (entity != null) {
-                    MinecraftDimensionConfig dimensionConfig = minecraftConfig.dimensions.getDimension(entity.dimension);
-
-                    if (dimensionConfig.chatPrefix != null && dimensionConfig.chatPrefix.trim().length() > 0) {
-                        prefix = dimensionConfig.chatPrefix;
-                    }
-
-                    if (dimensionConfig.messages.chatMessage != null) {
-                        messageConfig = dimensionConfig.messages.chatMessage;
-                    }
-
-                    channels = dimensionConfig.relayChat.getChannels(
-                        genericConfig.relayChat.getChannels(
-                            dimensionConfig.discordChannel.getChannels(
-                                genericConfig.discordChannel
-                            )
-                        )
-                    );
-                } else {
-                    channels = genericConfig.relayChat.getChannels(genericConfig.discordChannel);
-                }
-            } else {
-                channels = genericConfig.relayChat.getChannels(genericConfig.discordChannel);
-            }
-
-            String authorName = null;
-            String avatarUrl = null;
-
-            //noinspection Duplicates
-            if (sender != null) {
-                authorName = sender.getCommandSenderName();
-                if (sender instanceof EntityPlayer) {
-                    avatarUrl = CoreUtils.getAvatarUrl(sender.getCommandSenderName());
-
-                    Long discordId = Configuration.getLinking().getDiscordId(((EntityPlayer) sender).getGameProfile().getId());
-                    if (discordId != null) {
-                        User discordUser = DiscordClient.getInstance().getUser(discordId);
-                        if (discordUser != null) {
-                            authorName = discordUser.getName();
-                            avatarUrl = discordUser.getAvatarUrl();
-                        }
-                    }
-                }
-            }
-
-            DiscordClient.getInstance().broadcast(
-                new Message()
-                    .setAuthor(authorName)
-                    .setAvatarUrl("https://minotar.net/helm/yeehawitsjake/128.png")
-                    .setMessage(messageConfig)
-                    .setArguments(arguments)
-                    .setPrefix(prefix),
-                channels
+            RelayPipeline.getInstance().submit(
+                new RelayEvent(RelayEvent.Type.CHAT, dimension, playerId, senderName, message, arguments)
             );
         } else if (commandName.equalsIgnoreCase("discord")) {
             // Do not relay linking commands
             if (event.parameters.length > 0 && event.parameters[0].equalsIgnoreCase("link")) {
                 return;
             }
-        } else if (commandName.equalsIgnoreCase("list")) {
-            //Ignore ApexMCs Link command being issued automatically every couple of minutes.
-            //I may be at least 1% idiot...it's "link" not "list" I am trying to ignore. Oops
-            return;
-        } else if (commandName.equalsIgnoreCase("help")) {
-            //Used for testing, dont need to see when people use help anyways.
-            return;
-        }
-
-        ArrayList<Long> channels;
-
-        messageConfig = minecraftConfig.dimensions.generic.messages.command;
-
-        if (sender != null) {
-            Entity entity = sender.getEntityWorld().getPlayerEntityByName(sender.getCommandSenderName());
-
-            if (entity != null) {
-                MinecraftDimensionConfig dimensionConfig = minecraftConfig.dimensions.getDimension(entity.dimension);
-
-                if (dimensionConfig.messages.command != null) {
-                    messageConfig = dimensionConfig.messages.command;
-                }
-
-                channels = dimensionConfig.relayCommands.getChannels(
-                    genericConfig.relayCommands.getChannels(
-                        dimensionConfig.discordChannel.getChannels(
-                            genericConfig.discordChannel
-                        )
-                    )
-                );
-            } else {
-                channels = genericConfig.relayCommands.getChannels(genericConfig.discordChannel);
-            }
-        } else {
-            channels = genericConfig.relayCommands.getChannels(genericConfig.discordChannel);
         }
 
         HashMap<String, String> arguments = new HashMap<>();
         arguments.put("COMMAND", event.command.getCommandName());
-        arguments.put("ARGUMENTS", Joiner.on(" ").join(event.parameters));
+        arguments.put("ARGUMENTS", commandArguments);
 
-        String authorName = null;
-        String avatarUrl = null;
-
-        //noinspection Duplicates
-        if (sender != null) {
-            authorName = sender.getCommandSenderName();
-            if (sender instanceof EntityPlayer) {
-                avatarUrl = CoreUtils.getAvatarUrl(sender.getCommandSenderName());
-
-                Long discordId = Configuration.getLinking().getDiscordId(((EntityPlayer) sender).getGameProfile().getId());
-                if (discordId != null) {
-                    User discordUser = DiscordClient.getInstance().getUser(discordId);
-                    if (discordUser != null) {
-                        authorName = discordUser.getName();
-                        avatarUrl = discordUser.getAvatarUrl();
-                    }
-                }
-            }
-        }
-
-        DiscordClient.getInstance().broadcast(
-            new Message()
-                .setAuthor(authorName)
-                //TODO: Avatar URL doesn't seem to work.
-                .setAvatarUrl("https://minotar.net/helm/yeehawitsjake/128.png")
-                .setMessage(messageConfig)
-                .setArguments(arguments)
-                .setParsing(false),
-            channels
+        RelayPipeline.getInstance().submit(
+            new RelayEvent(RelayEvent.Type.COMMAND, dimension, playerId, senderName, ignoreText, arguments)
         );
     }
 
@@ -229,45 +123,17 @@ public class MinecraftListener {
             return;
         }
 
-        if (Configuration.getConfig().minecraft.dimensions.generic.isMessageIgnored(event.message)) {
-            return;
-        }
-
         HashMap<String, String> arguments = new HashMap<>();
         arguments.put("MESSAGE", event.message);
 
-        MinecraftConfig minecraftConfig = Configuration.getConfig().minecraft;
-        MinecraftDimensionConfig dimensionConfig = minecraftConfig.dimensions.getDimension(event.player.dimension);
-        MinecraftDimensionConfig genericConfig = minecraftConfig.dimensions.generic;
-
-        MessageConfig messageConfig = dimensionConfig.messages.chatMessage != null ? dimensionConfig.messages.chatMessage : genericConfig.messages.chatMessage;
-
-        String authorName = event.username;
-        String avatarUrl = CoreUtils.getAvatarUrl(authorName);
-
-        Long discordId = Configuration.getLinking().getDiscordId(event.player.getGameProfile().getId());
-        //noinspection Duplicates
-        if (discordId != null) {
-            User discordUser = DiscordClient.getInstance().getUser(discordId);
-            if (discordUser != null) {
-                authorName = discordUser.getName();
-                avatarUrl = discordUser.getAvatarUrl();
-            }
-        }
-
-        DiscordClient.getInstance().broadcast(
-            new Message()
-                .setAuthor(authorName)
-                .setAvatarUrl("https://minotar.net/helm/yeehawitsjake/128.png")
-                .setMessage(messageConfig)
-                .setArguments(arguments)
-                .setPrefix(dimensionConfig.chatPrefix != null && dimensionConfig.chatPrefix.trim().length() > 0 ? dimensionConfig.chatPrefix : genericConfig.chatPrefix),
-            dimensionConfig.relayChat.getChannels(
-                genericConfig.relayChat.getChannels(
-                    dimensionConfig.discordChannel.getChannels(
-                        genericConfig.discordChannel
-                    )
-                )
+        RelayPipeline.getInstance().submit(
+            new RelayEvent(
+                RelayEvent.Type.CHAT,
+                event.player.dimension,
+                event.player.getGameProfile().getId(),
+                event.username,
+                event.message,
+                arguments
             )
         );
     }
@@ -291,42 +157,16 @@ public class MinecraftListener {
             arguments.put("ACHIEVEMENT", achievement.func_150951_e().getUnformattedText());
             arguments.put("DESCRIPTION", StatCollector.translateToLocalFormatted(achievement.achievementDescription, "KEY"));
 
-            MinecraftConfig minecraftConfig = Configuration.getConfig().minecraft;
-            MinecraftDimensionConfig dimensionConfig = minecraftConfig.dimensions.getDimension(entityPlayer.dimension);
-            MinecraftDimensionConfig genericConfig = minecraftConfig.dimensions.generic;
-
-            MessageConfig messageConfig = dimensionConfig.messages.achievement != null ? dimensionConfig.messages.achievement : genericConfig.messages.achievement;
-
-            String authorName = entityPlayer.getDisplayName();
-            String avatarUrl = CoreUtils.getAvatarUrl(authorName);
-
-            Long discordId = Configuration.getLinking().getDiscordId(entityPlayer.getGameProfile().getId());
-            //noinspection Duplicates
-            if (discordId != null) {
-                User discordUser = DiscordClient.getInstance().getUser(discordId);
-                if (discordUser != null) {
-                    authorName = discordUser.getName();
-                    avatarUrl = discordUser.getAvatarUrl();
-                }
-            }
-
-
-            DiscordClient.getInstance().broadcast(
-                new Message()
-                    .setAuthor(authorName)
-                    .setAvatarUrl("https://minotar.net/helm/yeehawitsjake/128.png")
-                    .setMessage(messageConfig)
-                    .setArguments(arguments)
-                    .setEventType("ACH"),
-                dimensionConfig.relayAchievements.getChannels(
-                    genericConfig.relayAchievements.getChannels(
-                        dimensionConfig.discordChannel.getChannels(
-                            genericConfig.discordChannel
-                        )
-                    )
+            RelayPipeline.getInstance().submit(
+                new RelayEvent(
+                    RelayEvent.Type.ACHIEVEMENT,
+                    entityPlayer.dimension,
+                    entityPlayer.getGameProfile().getId(),
+                    entityPlayer.getDisplayName(),
+                    null,
+                    arguments
                 )
             );
-
         }
     }
 
@@ -334,36 +174,19 @@ public class MinecraftListener {
     public void onPlayerJoin(PlayerEvent.PlayerLoggedInEvent event) {
         if (event.isCanceled() || event.player == null) return;
 
-        MinecraftConfig minecraftConfig = Configuration.getConfig().minecraft;
-        MinecraftDimensionConfig dimensionConfig = minecraftConfig.dimensions.getDimension(event.player.dimension);
-        MinecraftDimensionConfig genericConfig = minecraftConfig.dimensions.generic;
-
-        MessageConfig messageConfig = dimensionConfig.messages.playerJoin != null ? dimensionConfig.messages.playerJoin : genericConfig.messages.playerJoin;
-
-        String authorName = event.player.getDisplayName();
-        String avatarUrl = CoreUtils.getAvatarUrl(authorName);
-
-        Long discordId = Configuration.getLinking().getDiscordId(event.player.getGameProfile().getId());
-        //noinspection Duplicates
-        if (discordId != null) {
-            User discordUser = DiscordClient.getInstance().getUser(discordId);
-            if (discordUser != null) {
-                authorName = discordUser.getName();
-                avatarUrl = discordUser.getAvatarUrl();
-            }
+        PlayerIdentityCache.getInstance().login(event.player.getGameProfile().getId(), event.player.getDisplayName());
+        if (event.player instanceof EntityPlayerMP) {
+            PlayerRegistry.getInstance().track((EntityPlayerMP) event.player);
         }
 
-        DiscordClient.getInstance().broadcast(
-            new Message()
-                .setAuthor(authorName)
-                .setAvatarUrl("https://minotar.net/helm/yeehawitsjake/128.png")
-                .setMessage(messageConfig),
-            dimensionConfig.relayPlayerJoin.getChannels(
-                genericConfig.relayPlayerJoin.getChannels(
-                    dimensionConfig.discordChannel.getChannels(
-                        genericConfig.discordChannel
-                    )
-                )
+        RelayPipeline.getInstance().submit(
+            new RelayEvent(
+                RelayEvent.Type.PLAYER_JOIN,
+                event.player.dimension,
+                event.player.getGameProfile().getId(),
+                event.player.getDisplayName(),
+                null,
+                null
             )
         );
     }
@@ -373,38 +196,36 @@ public class MinecraftListener {
     public void onPlayerLeave(PlayerEvent.PlayerLoggedOutEvent event) {
         if (event.isCanceled() || event.player == null) return;
 
-        MinecraftConfig minecraftConfig = Configuration.getConfig().minecraft;
-        MinecraftDimensionConfig dimensionConfig = minecraftConfig.dimensions.getDimension(event.player.dimension);
-        MinecraftDimensionConfig genericConfig = minecraftConfig.dimensions.generic;
-
-        MessageConfig messageConfig = dimensionConfig.messages.playerLeave != null ? dimensionConfig.messages.playerLeave : genericConfig.messages.playerLeave;
+        RelayPipeline.getInstance().submit(
+            new RelayEvent(
+                RelayEvent.Type.PLAYER_LEAVE,
+                event.player.dimension,
+                event.player.getGameProfile().getId(),
+                event.player.getDisplayName(),
+                null,
+                null
+            )
+        );
 
-        String authorName = event.player.getDisplayName();
-        String avatarUrl = CoreUtils.getAvatarUrl(authorName);
+        PlayerIdentityCache.getInstance().logout(event.player.getGameProfile().getId());
+        if (event.player instanceof EntityPlayerMP) {
+            PlayerRegistry.getInstance().untrack((EntityPlayerMP) event.player);
+        }
+    }
 
-        Long discordId = Configuration.getLinking().getDiscordId(event.player.getGameProfile().getId());
-        //noinspection Duplicates
-        if (discordId != null) {
-            User discordUser = DiscordClient.getInstance().getUser(discordId);
-            if (discordUser != null) {
-                authorName = discordUser.getName();
-                avatarUrl = discordUser.getAvatarUrl();
-            }
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public void onPlayerChangedDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
+        if (event.player instanceof EntityPlayerMP) {
+            PlayerRegistry.getInstance().track((EntityPlayerMP) event.player, event.toDim);
         }
+    }
 
-        DiscordClient.getInstance().broadcast(
-            new Message()
-                .setAuthor(authorName)
-                .setAvatarUrl("https://minotar.net/helm/yeehawitsjake/128.png")
-                .setMessage(messageConfig),
-            dimensionConfig.relayPlayerLeave.getChannels(
-                genericConfig.relayPlayerLeave.getChannels(
-                    dimensionConfig.discordChannel.getChannels(
-                        genericConfig.discordChannel
-                    )
-                )
-            )
-        );
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public void onPlayerRespawn(PlayerEvent.PlayerRespawnEvent event) {
+        // Respawning creates a new player entity
+        if (event.player instanceof EntityPlayerMP) {
+            PlayerRegistry.getInstance().track((EntityPlayerMP) event.player);
+        }
     }
 
     @SubscribeEvent(priority = EventPriority.LOWEST)
@@ -467,37 +288,14 @@ public class MinecraftListener {
             System.out.println(entityPlayer.getDisplayName()+" "+deathMessage[rnd]);
             //arguments.put("REASON", entityPlayer.func_110142_aN().func_151521_b().getUnformattedText().replace(entityPlayer.getDisplayName(), "").trim());
 
-            MinecraftConfig minecraftConfig = Configuration.getConfig().minecraft;
-            MinecraftDimensionConfig dimensionConfig = minecraftConfig.dimensions.getDimension(entityLiving.dimension);
-            MinecraftDimensionConfig genericConfig = minecraftConfig.dimensions.generic;
-
-            MessageConfig messageConfig = dimensionConfig.messages.playerDeath != null ? dimensionConfig.messages.playerDeath : genericConfig.messages.playerDeath;
-
-            String authorName = entityPlayer.getDisplayName();
-            String avatarUrl = CoreUtils.getAvatarUrl(authorName);
-
-            Long discordId = Configuration.getLinking().getDiscordId(entityPlayer.getGameProfile().getId());
-            //noinspection Duplicates
-            if (discordId != null) {
-                User discordUser = DiscordClient.getInstance().getUser(discordId);
-                if (discordUser != null) {
-                    authorName = discordUser.getName();
-                    avatarUrl = discordUser.getAvatarUrl();
-                }
-            }
-
-            DiscordClient.getInstance().broadcast(
-                new Message()
-                    .setAuthor(authorName)
-                    .setAvatarUrl("https://minotar.net/helm/yeehawitsjake/128.png")
-                    .setMessage(messageConfig)
-                    .setArguments(arguments),
-                dimensionConfig.relayPlayerDeath.getChannels(
-                    genericConfig.relayPlayerDeath.getChannels(
-                        dimensionConfig.discordChannel.getChannels(
-                            genericConfig.discordChannel
-                        )
-                    )
+            RelayPipeline.getInstance().submit(
+                new RelayEvent(
+                    RelayEvent.Type.PLAYER_DEATH,
+                    entityLiving.dimension,
+                    entityPlayer.getGameProfile().getId(),
+                    entityPlayer.getDisplayName(),
+                    null,
+                    arguments
                 )
             );
         }
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord;
+
+import chikachi.discord.core.config.discord.DiscordFloodConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class FloodGateTest {
+    private static final long CHANNEL = 1;
+    private static final long ALICE = 10;
+    private static final long BOB = 20;
+
+    private final DiscordFloodConfig config = new DiscordFloodConfig();
+    private final List<String> shown = new ArrayList<>();
+    private long now = 0;
+    private FloodGate floodGate;
+
+    @Before
+    public void setUp() {
+        this.config.overflowPolicy = "delay";
+        this.config.fillFields();
+        this.floodGate = new FloodGate(() -> this.config, (text, dimensions) -> this.shown.add(text), () -> this.now);
+    }
+
+    private void submit(long userId, String text) {
+        this.floodGate.submit(CHANNEL, userId, "User " + userId, () -> text, new int[0]);
+    }
+
+    private void advanceSeconds(int seconds) {
+        this.now += TimeUnit.SECONDS.toNanos(seconds);
+        this.floodGate.tick();
+    }
+
+    @Test
+    public void delayedUserDoesNotHoldUpOthers() {
+        this.config.userBurst = 2;
+        this.config.userMessagesPerSecond = 1;
+
+        for (int i = 1; i <= 5; i++) {
+            submit(ALICE, "a" + i);
+        }
+        submit(BOB, "b1");
+
+        assertEquals(Arrays.asList("a1", "a2", "b1"), this.shown);
+
+        advanceSeconds(1);
+        assertEquals(Arrays.asList("a1", "a2", "b1", "a3"), this.shown);
+    }
+
+    @Test
+    public void delayedMessagesAreLimitedPerUser() {
+        this.config.userBurst = 1;
+        this.config.maxDelayedMessages = 2;
+
+        for (int i = 1; i <= 5; i++) {
+            submit(ALICE, "a" + i);
+        }
+        submit(BOB, "b1");
+        submit(BOB, "b2");
+
+        assertEquals(Arrays.asList("a1", "b1"), this.shown);
+        assertEquals(2, this.floodGate.getStats().get(CHANNEL).getDropped());
+        assertEquals(3, this.floodGate.getStats().get(CHANNEL).getDelayed());
+
+        advanceSeconds(1);
+        advanceSeconds(1);
+        assertEquals(Arrays.asList("a1", "b1", "a2", "b2", "a3"), this.shown);
+    }
+
+    @Test
+    public void usersTakeTurnsForTheChannelTokens() {
+        this.config.channelBurst = 2;
+        this.config.channelMessagesPerSecond = 1;
+        this.config.userBurst = 10;
+
+        for (int i = 1; i <= 3; i++) {
+            submit(ALICE, "a" + i);
+        }
+        for (int i = 1; i <= 3; i++) {
+            submit(BOB, "b" + i);
+        }
+        assertEquals(Arrays.asList("a1", "a2"), this.shown);
+
+        advanceSeconds(2);
+        assertEquals(Arrays.asList("a1", "a2", "a3", "b1"), this.shown);
+
+        advanceSeconds(2);
+        assertEquals(Arrays.asList("a1", "a2", "a3", "b1", "b2", "b3"), this.shown);
+    }
+
+    @Test
+    public void userKeepsTheirOwnOrder() {
+        this.config.userBurst = 1;
+        this.config.userMessagesPerSecond = 1;
+
+        submit(ALICE, "a1");
+        submit(ALICE, "a2");
+        advanceSeconds(1);
+        // a2 is still waiting for its turn when a3 comes in
+        submit(ALICE, "a3");
+        submit(ALICE, "a4");
+        advanceSeconds(1);
+        advanceSeconds(1);
+
+        assertEquals(Arrays.asList("a1", "a2", "a3", "a4"), this.shown);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producers sending chat messages at random intervals into a Batcher, on a {@link VirtualScheduler}, so a run gives
+ * the same numbers on every machine. BatcherTest checks the results, BatcherStress reports them.
+ */
+class BatcherSimulation {
+    static final long DELAY_MS = 250;
+    static final long MAX_LATENCY_MS = 1000;
+    static final int MAX_ITEMS = 20;
+
+    final int producers;
+    final double rate;
+    final int items;
+    /**
+     * Nanoseconds each item waited, by item
+     */
+    final long[] latencies;
+    /**
+     * Times each item was passed to the Consumer, by item
+     */
+    final int[] delivered;
+    final List<Integer> batchSizes = new ArrayList<>();
+    final List<Integer> batchWeights = new ArrayList<>();
+
+    /**
+     * @param producers Producers sending at the same time
+     * @param rate      Messages per second per producer
+     * @param seconds   Virtual seconds to send for
+     */
+    BatcherSimulation(int producers, double rate, int seconds) {
+        this.producers = producers;
+        this.rate = rate;
+
+        Random random = new Random(producers * 1000L + (long) (rate * 10));
+        VirtualScheduler scheduler = new VirtualScheduler();
+        long duration = TimeUnit.SECONDS.toNanos(seconds);
+
+        // Every producer sends at random intervals averaging 1 / rate
+        List<long[]> arrivals = new ArrayList<>();
+        for (int producer = 0; producer < producers; producer++) {
+            long time = 0;
+            while (true) {
+                time += (long) (-Math.log(1 - random.nextDouble()) / rate * 1e9);
+                if (time >= duration) {
+                    break;
+                }
+                arrivals.add(new long[]{time, producer});
+            }
+        }
+        arrivals.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        this.items = arrivals.size();
+        this.latencies = new long[this.items];
+        this.delivered = new int[this.items];
+
+        Batcher<Item> batcher = new Batcher<>(
+            batch -> {
+                int weight = 0;
+                for (Item item : batch) {
+                    this.delivered[item.id]++;
+                    this.latencies[item.id] = scheduler.now() - item.queuedAt;
+                    weight += weigh(item);
+                }
+                this.batchSizes.add(batch.size());
+                this.batchWeights.add(weight);
+            },
+            DELAY_MS,
+            MAX_LATENCY_MS,
+            MAX_ITEMS,
+            MessageSplitter.MAX_LENGTH,
+            BatcherSimulation::weigh,
+            scheduler,
+            scheduler::now
+        );
+
+        for (int i = 0; i < this.items; i++) {
+            long[] arrival = arrivals.get(i);
+            scheduler.advanceTo(arrival[0]);
+            batcher.queue(new Item(i, arrival[0], randomText(random)));
+        }
+        scheduler.runAll();
+    }
+
+    /**
+     * @return Items not passed to the Consumer exactly once
+     */
+    int lostOrDuplicated() {
+        int wrong = 0;
+        for (int count : this.delivered) {
+            if (count != 1) {
+                wrong++;
+            }
+        }
+        return wrong;
+    }
+
+    /**
+     * @return Latencies in nanoseconds, shortest first
+     */
+    long[] sortedLatencies() {
+        long[] sorted = this.latencies.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int weigh(Item item) {
+        // Joined with a newline
+        return item.text.length() + 1;
+    }
+
+    /**
+     * Chat message lengths, mostly short with the odd long one
+     */
+    private static String randomText(Random random) {
+        int length = random.nextInt(10) == 0 ? 200 + random.nextInt(1000) : 5 + random.nextInt(60);
+        char[] text = new char[length];
+        Arrays.fill(text, 'x');
+        return new String(text);
+    }
+
+    private static class Item {
+        private final int id;
+        private final long queuedAt;
+        private final String text;
+
+        Item(int id, long queuedAt, String text) {
+            this.id = id;
+            this.queuedAt = queuedAt;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Batcher with 1 to 32 producers has to pass every item on exactly once, and never hold one longer than the max
+ * latency.
+ */
+public class BatcherTest {
+    private static final int[] PRODUCERS = {1, 2, 4, 8, 16, 32};
+    /**
+     * Messages per second per producer
+     */
+    private static final double[] RATES = {0.2, 1, 10};
+    private static final int ITEMS_PER_THREAD = 20000;
+
+    @Test
+    public void flushesAfterAPause() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        List<List<String>> batches = new ArrayList<>();
+        Batcher<String> batcher = new Batcher<>(batches::add, 100, 1000, 20, Long.MAX_VALUE, item -> 0, scheduler, scheduler::now);
+
+        batcher.queue("a");
+        scheduler.advanceTo(TimeUnit.MILLISECONDS.toNanos(50));
+        batcher.queue("b");
+        scheduler.advanceTo(TimeUnit.MILLISECONDS.toNanos(149));
+        assertEquals(0, batches.size());
+
+        scheduler.advanceTo(TimeUnit.MILLISECONDS.toNanos(150));
+        assertEquals(Arrays.asList(Arrays.asList("a", "b")), batches);
+        assertEquals(0, batcher.size());
+    }
+
+    @Test
+    public void flushesAtMaxLatencyWithoutAPause() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        List<Long> flushedAt = new ArrayList<>();
+        Batcher<Integer> batcher = new Batcher<>(batch -> flushedAt.add(scheduler.now()), 100, 300, 1000, Long.MAX_VALUE, item -> 0, scheduler, scheduler::now);
+
+        for (int i = 0; i <= 10; i++) {
+            scheduler.advanceTo(TimeUnit.MILLISECONDS.toNanos(i * 50));
+            batcher.queue(i);
+        }
+
+        assertEquals(Arrays.asList(TimeUnit.MILLISECONDS.toNanos(300)), flushedAt);
+    }
+
+    @Test
+    public void flushesRightAwayAtMaxItems() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        List<List<Integer>> batches = new ArrayList<>();
+        Batcher<Integer> batcher = new Batcher<>(batches::add, 100, 1000, 3, Long.MAX_VALUE, item -> 0, scheduler, scheduler::now);
+
+        for (int i = 0; i < 3; i++) {
+            batcher.queue(i);
+        }
+        scheduler.advanceTo(0);
+
+        assertEquals(Arrays.asList(Arrays.asList(0, 1, 2)), batches);
+    }
+
+    @Test
+    public void splitsBatchesByWeight() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        List<List<String>> batches = new ArrayList<>();
+        Batcher<String> batcher = new Batcher<>(batches::add, 100, 1000, 20, 10, String::length, scheduler, scheduler::now);
+
+        batcher.queue("aaaa");
+        batcher.queue("bbbb");
+        batcher.queue("cccc");
+        batcher.queue("dddddddddddd");
+        scheduler.runAll();
+
+        // A single item heavier than the limit still goes out on its own
+        assertEquals(
+            Arrays.asList(Arrays.asList("aaaa", "bbbb"), Arrays.asList("cccc"), Arrays.asList("dddddddddddd")),
+            batches
+        );
+    }
+
+    @Test
+    public void keepsFlushingAfterTheConsumerThrows() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        List<List<String>> batches = new ArrayList<>();
+        Batcher<String> batcher = new Batcher<>(
+            batch -> {
+                if (batch.contains("first")) {
+                    throw new IllegalStateException("Missing permission");
+                }
+                batches.add(batch);
+            },
+            100, 1000, 20, Long.MAX_VALUE, item -> 0, scheduler, scheduler::now
+        );
+
+        batcher.queue("first");
+        scheduler.advanceTo(TimeUnit.MILLISECONDS.toNanos(100));
+        batcher.queue("second");
+        scheduler.advanceTo(TimeUnit.MILLISECONDS.toNanos(200));
+
+        assertEquals(Arrays.asList(Arrays.asList("second")), batches);
+        assertEquals(0, batcher.size());
+    }
+
+    @Test
+    public void passesOnTheOtherBatchesWhenTheConsumerThrows() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        List<List<String>> batches = new ArrayList<>();
+        Batcher<String> batcher = new Batcher<>(
+            batch -> {
+                if (batch.contains("bbbb")) {
+                    throw new IllegalStateException("Message too long");
+                }
+                batches.add(batch);
+            },
+            100, 1000, 20, 8, String::length, scheduler, scheduler::now
+        );
+
+        batcher.queue("aaaa");
+        batcher.queue("aaaa");
+        batcher.queue("bbbb");
+        batcher.queue("cccccc");
+        scheduler.runAll();
+
+        assertEquals(Arrays.asList(Arrays.asList("aaaa", "aaaa"), Arrays.asList("cccccc")), batches);
+    }
+
+    @Test
+    public void simulatedProducersLoseNothingAndKeepTheMaxLatency() {
+        long maxLatency = TimeUnit.MILLISECONDS.toNanos(BatcherSimulation.MAX_LATENCY_MS);
+
+        for (int producers : PRODUCERS) {
+            for (double rate : RATES) {
+                BatcherSimulation simulation = new BatcherSimulation(producers, rate, 120);
+                String run = producers + " producers at " + rate + "/s";
+
+                assertTrue(run, simulation.items > 0);
+                assertEquals(run + ", lost or duplicated", 0, simulation.lostOrDuplicated());
+
+                long[] latencies = simulation.sortedLatencies();
+                long max = latencies[latencies.length - 1];
+                assertTrue(run + ", an item waited " + max / 1e6 + " ms", max <= maxLatency);
+
+                for (int i = 0; i < simulation.batchSizes.size(); i++) {
+                    assertTrue(run, simulation.batchSizes.get(i) <= BatcherSimulation.MAX_ITEMS);
+                    assertTrue(run, simulation.batchSizes.get(i) == 1 || simulation.batchWeights.get(i) <= MessageSplitter.MAX_LENGTH);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void threadsLoseNothing() throws InterruptedException {
+        for (int producers : PRODUCERS) {
+            assertEquals(producers + " producers, lost or duplicated", 0, queueConcurrently(producers));
+        }
+    }
+
+    /**
+     * @return Items not passed to the Consumer exactly once
+     */
+    private static int queueConcurrently(int producers) throws InterruptedException {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        int items = producers * ITEMS_PER_THREAD;
+        AtomicIntegerArray delivered = new AtomicIntegerArray(items);
+        AtomicLong deliveredCount = new AtomicLong();
+
+        Batcher<Integer> batcher = new Batcher<>(
+            batch -> {
+                for (Integer item : batch) {
+                    delivered.incrementAndGet(item);
+                }
+                deliveredCount.addAndGet(batch.size());
+            },
+            5,
+            50,
+            BatcherSimulation.MAX_ITEMS,
+            MessageSplitter.MAX_LENGTH,
+            item -> 40,
+            executor,
+            System::nanoTime
+        );
+
+        Thread[] threads = new Thread[producers];
+        for (int producer = 0; producer < producers; producer++) {
+            int first = producer * ITEMS_PER_THREAD;
+            threads[producer] = new Thread(() -> {
+                for (int i = 0; i < ITEMS_PER_THREAD; i++) {
+                    batcher.queue(first + i);
+                }
+            });
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (deliveredCount.get() < items && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // Give duplicates a chance to show up
+        Thread.sleep(100);
+        executor.shutdown();
+
+        int wrong = 0;
+        for (int i = 0; i < items; i++) {
+            if (delivered.get(i) != 1) {
+                wrong++;
+            }
+        }
+        return wrong;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CommandTemplateTest {
+    private static final List<String> ARGS = Arrays.asList("Steve", "Alex", "100");
+
+    private static String render(String source, List<String> args) {
+        return CommandTemplate.compile(source).render(args);
+    }
+
+    @Test
+    public void insertsArguments() {
+        assertEquals("tp Steve Alex", render("tp {ARG_1} {ARG_2}", ARGS));
+        assertEquals("say Alex Steve", render("say {ARG_2} {ARG_1}", ARGS));
+        assertEquals("kick Steve Alex 100", render("kick {ARGS}", ARGS));
+    }
+
+    @Test
+    public void placeholdersIgnoreCase() {
+        assertEquals("tp Steve Alex", render("tp {arg_1} {Arg_2}", ARGS));
+        assertEquals("kick Steve Alex 100", render("kick {args}", ARGS));
+    }
+
+    @Test
+    public void insertsArgumentRanges() {
+        assertEquals("give Steve Alex 100", render("give {ARG_1} {ARGS_2+}", ARGS));
+        assertEquals("Alex", render("{ARGS_2-2}", ARGS));
+        assertEquals("Steve Alex", render("{args_1-2}", ARGS));
+        assertEquals("Alex 100", render("{ARGS_2-9}", ARGS));
+    }
+
+    @Test
+    public void leavesOutMissingArguments() {
+        assertEquals("tp Steve", render("tp {ARG_1} {ARG_5}", ARGS));
+        assertEquals("say", render("say {ARGS_4+}", ARGS));
+        assertEquals("list", render("list {ARGS} {ARG_1}", Collections.emptyList()));
+        assertEquals("", render("{ARG_1}", Collections.emptyList()));
+    }
+
+    @Test
+    public void leavesOtherBracesAlone() {
+        assertEquals("{FOO} {ARG_} {ARG_1", render("{FOO} {ARG_} {ARG_1", ARGS));
+        assertEquals("{Steve}", render("{{ARG_1}}", ARGS));
+        assertEquals("ARG_1} {", render("ARG_1} {", ARGS));
+    }
+
+    @Test
+    public void insertsArgumentsAsTheyAre() {
+        List<String> args = Arrays.asList("$1", "C:\\path", "{ARG_1}");
+
+        assertEquals("say $1 C:\\path {ARG_1}", render("say {ARG_1} {ARG_2} {ARG_3}", args));
+        assertEquals("say $1 C:\\path {ARG_1}", render("say {ARGS}", args));
+    }
+
+    @Test
+    public void trimsTheCommand() {
+        assertEquals("list", render("  list  ", ARGS));
+        assertEquals("tp Steve", render("tp {ARG_1} {ARG_9} ", ARGS));
+    }
+
+    @Test
+    public void rendersEmptySources() {
+        assertEquals("", render("", ARGS));
+        assertEquals("", render(null, ARGS));
+        assertNull(CommandTemplate.compile(null).getSource());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FormattingTranscoderTest {
+    private static final String S = "§";
+
+    @Test
+    public void convertsMinecraftCodesToDiscord() {
+        assertEquals("**bold** text", FormattingTranscoder.minecraftToDiscord(S + "lbold" + S + "r text"));
+        assertEquals("__u__ ~~strike~~", FormattingTranscoder.minecraftToDiscord(S + "nu" + S + "r " + S + "mstrike" + S + "r"));
+        assertEquals("**upper**", FormattingTranscoder.minecraftToDiscord(S + "Lupper" + S + "R"));
+    }
+
+    @Test
+    public void dropsOtherMinecraftCodes() {
+        assertEquals("red **text**", FormattingTranscoder.minecraftToDiscord(S + "cred " + S + "ltext"));
+        assertEquals("plain", FormattingTranscoder.minecraftToDiscord("plain"));
+    }
+
+    @Test
+    public void closesNestedMinecraftCodesInOrder() {
+        assertEquals("***both***", FormattingTranscoder.minecraftToDiscord(S + "l" + S + "oboth" + S + "r"));
+        assertEquals("***__~~all~~__***", FormattingTranscoder.minecraftToDiscord(S + "l" + S + "o" + S + "n" + S + "mall"));
+    }
+
+    @Test
+    public void closesMinecraftCodesLeftOpen() {
+        assertEquals("*bye*", FormattingTranscoder.minecraftToDiscord(S + "obye"));
+        // Bold and italic opened and closed around nothing collapse to a single marker
+        assertEquals("**", FormattingTranscoder.minecraftToDiscord(S + "o" + S + "l" + S + "r"));
+    }
+
+    @Test
+    public void convertsDiscordMarkdownToMinecraft() {
+        assertEquals(S + "lbold" + S + "r text", FormattingTranscoder.discordToMinecraft("**bold** text"));
+        assertEquals(S + "oit" + S + "r " + S + "oit" + S + "r", FormattingTranscoder.discordToMinecraft("*it* _it_"));
+        assertEquals(S + "nu" + S + "r " + S + "ms" + S + "r", FormattingTranscoder.discordToMinecraft("__u__ ~~s~~"));
+        assertEquals(S + "oa_b" + S + "r", FormattingTranscoder.discordToMinecraft("*a_b*"));
+    }
+
+    @Test
+    public void reopensOuterMarkdownAfterAnInnerOneCloses() {
+        assertEquals(S + "l" + S + "ox" + S + "r", FormattingTranscoder.discordToMinecraft("***x***"));
+        assertEquals(S + "m" + S + "lx" + S + "r y", FormattingTranscoder.discordToMinecraft("~~**x**~~ y"));
+        assertEquals(S + "lx " + S + "ny" + S + "r" + S + "n z" + S + "r", FormattingTranscoder.discordToMinecraft("**x __y** z__"));
+    }
+
+    @Test
+    public void keepsUnclosedMarkdownAsText() {
+        assertEquals("**open", FormattingTranscoder.discordToMinecraft("**open"));
+        assertEquals(S + "la" + S + "r *b", FormattingTranscoder.discordToMinecraft("**a** *b"));
+        assertEquals("a * b", FormattingTranscoder.discordToMinecraft("a * b"));
+    }
+
+    @Test
+    public void leavesCodeFencesAlone() {
+        assertEquals("`code`", FormattingTranscoder.discordToMinecraft("`code`"));
+        assertEquals("```block```", FormattingTranscoder.discordToMinecraft("```block```"));
+    }
+
+    @Test
+    public void keepsSurrogatePairs() {
+        assertEquals("\ud83d\ude00 **hi**", FormattingTranscoder.minecraftToDiscord("\ud83d\ude00 " + S + "lhi"));
+        assertEquals("\ud83d\ude00 " + S + "ox" + S + "r", FormattingTranscoder.discordToMinecraft("\ud83d\ude00 *x*"));
+    }
+
+    @Test
+    public void unifiesAmpersandCodes() {
+        assertEquals(S + "aGreen &Lupper", FormattingTranscoder.unify("&aGreen &Lupper"));
+        assertEquals(S + "r", FormattingTranscoder.unify("&r"));
+        assertEquals("&" + S + "a", FormattingTranscoder.unify("&&a"));
+        assertEquals("&z", FormattingTranscoder.unify("&z"));
+        assertEquals("**bold** text", FormattingTranscoder.minecraftToDiscord("&lbold&r text"));
+    }
+
+    @Test
+    public void leavesAmpersandCodesAfterAnAtAlone() {
+        assertEquals("@&a", FormattingTranscoder.unify("@&a"));
+        assertEquals("@&a", FormattingTranscoder.discordToMinecraft("@&a"));
+    }
+
+    @Test
+    public void convertsNullAndEmptyToEmpty() {
+        assertEquals("", FormattingTranscoder.minecraftToDiscord(null));
+        assertEquals("", FormattingTranscoder.discordToMinecraft(null));
+        assertEquals("", FormattingTranscoder.unify(null));
+        assertEquals("", FormattingTranscoder.minecraftToDiscord(""));
+        assertEquals("", FormattingTranscoder.discordToMinecraft(""));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * IgnoreFilter has to give the same answer as trying every pattern with find(), like before it existed.
+ */
+public class IgnoreFilterTest {
+    private static final String[] PATTERNS = {
+        "(?i)discord\\.gg/\\w+",
+        "badword",
+        "(?i)^(list|help)(\\s|$)",
+        "(a)\\1",
+        "(?i)free ?nitro",
+        "x+y",
+        "[0-9]{5,}",
+        "(?<n>zz)\\k<n>",
+        "Hello World",
+        "(?i)CAPS",
+        "a.b",
+        "^start",
+        "end$",
+        "abc|def",
+        "(?i)ß",
+        "\\x41bc",
+        "\\u0041bc",
+        "\\0101bc",
+        "\\cJline",
+        "\\p{Lu}pper",
+        "\\pLetter",
+        "\\Qa.b\\E",
+        "\\bword\\b",
+        "\\d\\dkm"
+    };
+
+    private static final String[] SEEDS = {
+        "join discord.gg/abc", "DISCORD.GG/x", "list", "HELP me", "helpme", "aa", "free nitro", "FREENITRO", "xxxy",
+        "12345", "zzzz", "Hello World", "caps", "a-b", "start here", "the end", "abc", "def", "SS", "ß", "Abc",
+        "\nline", "Upper", "Letter", "a.b", "a word here", "42km"
+    };
+
+    private static final String ALPHABET = "abcdefxyzADGLISTHELPUnitro freeworldHecapsß.0123456789/ \\\n";
+
+    private static boolean findAny(Pattern[] patterns, String text) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(text).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern[] compile(String... sources) {
+        Pattern[] patterns = new Pattern[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            patterns[i] = Pattern.compile(sources[i]);
+        }
+        return patterns;
+    }
+
+    @Test
+    public void escapesWithDigitsMatchLikeFind() {
+        for (String source : new String[]{"\\x41bc", "\\u0041bc", "\\0101bc"}) {
+            Pattern[] patterns = compile(source);
+            assertEquals(source, true, IgnoreFilter.compile(patterns).matches("Abc"));
+            assertEquals(source, false, IgnoreFilter.compile(patterns).matches("41bc"));
+        }
+    }
+
+    @Test
+    public void eachPatternAloneMatchesLikeFind() {
+        Random random = new Random(1);
+
+        for (String source : PATTERNS) {
+            Pattern[] patterns = compile(source);
+            IgnoreFilter filter = IgnoreFilter.compile(patterns);
+
+            for (String seed : SEEDS) {
+                assertEquals(source + " on " + seed, findAny(patterns, seed), filter.matches(seed));
+            }
+            for (int i = 0; i < 20000; i++) {
+                String text = randomText(random);
+                assertEquals(source + " on " + text, findAny(patterns, text), filter.matches(text));
+            }
+        }
+    }
+
+    @Test
+    public void allPatternsTogetherMatchLikeFind() {
+        Pattern[] patterns = compile(PATTERNS);
+        IgnoreFilter filter = IgnoreFilter.compile(patterns);
+        Random random = new Random(2);
+
+        for (int i = 0; i < 200000; i++) {
+            String text = randomText(random);
+            assertEquals(text, findAny(patterns, text), filter.matches(text));
+        }
+    }
+
+    @Test
+    public void countsHitsPerRule() {
+        IgnoreFilter filter = IgnoreFilter.compile(compile("foo", "bar"));
+
+        filter.matches("foo");
+        filter.matches("foo bar");
+        filter.matches("nothing");
+
+        // One hit per matching text, for the first rule found
+        assertEquals(2, filter.getRules().get(0).getHits() + filter.getRules().get(1).getHits());
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(20);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        if (random.nextInt(4) == 0) {
+            text.insert(random.nextInt(text.length() + 1), SEEDS[random.nextInt(SEEDS.length)]);
+        }
+        return text.toString();
+    }
+}
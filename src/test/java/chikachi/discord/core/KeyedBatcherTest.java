@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeyedBatcherTest {
+    private static long ms(long ms) {
+        return TimeUnit.MILLISECONDS.toNanos(ms);
+    }
+
+    @Test
+    public void batchesEveryKeyOnItsOwn() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        List<String> batches = new ArrayList<>();
+        KeyedBatcher<Long, String> batcher = new KeyedBatcher<>(
+            (key, items) -> batches.add(key + "=" + items),
+            100, 1000, 20, Long.MAX_VALUE, item -> 0, 60000, scheduler, scheduler::now
+        );
+
+        batcher.queue(1L, "a");
+        batcher.queue(2L, "b");
+        batcher.queue(1L, "c");
+        scheduler.advanceTo(ms(100));
+
+        assertEquals(Arrays.asList("1=[a, c]", "2=[b]"), batches);
+    }
+
+    @Test
+    public void removesIdleKeys() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        KeyedBatcher<Long, String> batcher = new KeyedBatcher<>(
+            (key, items) -> {
+            },
+            100, 1000, 20, Long.MAX_VALUE, item -> 0, 1000, scheduler, scheduler::now
+        );
+
+        batcher.queue(1L, "a");
+        scheduler.advanceTo(ms(1500));
+        batcher.queue(2L, "b");
+        assertEquals(2, batcher.getActiveKeys());
+
+        // Idle checks run every second, for keys that had nothing queued in the second before
+        scheduler.advanceTo(ms(2000));
+        assertEquals(1, batcher.getActiveKeys());
+        scheduler.advanceTo(ms(3000));
+        assertEquals(0, batcher.getActiveKeys());
+    }
+
+    @Test
+    public void keepsKeysWithItemsWaiting() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        KeyedBatcher<Long, String> batcher = new KeyedBatcher<>(
+            (key, items) -> {
+            },
+            5000, 10000, 20, Long.MAX_VALUE, item -> 0, 1000, scheduler, scheduler::now
+        );
+
+        batcher.queue(1L, "a");
+        scheduler.advanceTo(ms(3000));
+
+        assertEquals(1, batcher.getActiveKeys());
+        assertEquals(Integer.valueOf(1), batcher.getQueueDepths().get(1L));
+    }
+
+    @Test
+    public void zeroIdleTimeIsClamped() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        KeyedBatcher<Long, String> batcher = new KeyedBatcher<>(
+            (key, items) -> {
+            },
+            100, 1000, 20, Long.MAX_VALUE, item -> 0, 0, scheduler, scheduler::now
+        );
+
+        batcher.queue(1L, "a");
+        scheduler.advanceTo(ms(200));
+
+        assertEquals(0, batcher.getActiveKeys());
+    }
+
+    @Test
+    public void closedBatcherStillFlushes() {
+        VirtualScheduler scheduler = new VirtualScheduler();
+        List<String> batches = new ArrayList<>();
+        KeyedBatcher<Long, String> batcher = new KeyedBatcher<>(
+            (key, items) -> batches.add(key + "=" + items),
+            100, 1000, 20, Long.MAX_VALUE, item -> 0, 1000, scheduler, scheduler::now
+        );
+
+        batcher.queue(1L, "a");
+        batcher.close();
+        // Nothing periodic is left, so this ends
+        scheduler.runAll();
+
+        assertEquals(Arrays.asList("1=[a]"), batches);
+        assertEquals(1, batcher.getActiveKeys());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Text that fits in a Discord message has to be sent as it is, longer text has to come out in chunks that fit, in
+ * order, with nothing left out.
+ */
+public class MessageSplitterTest {
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    @Test
+    public void sendsTextThatFitsAsItIs() {
+        String full = "**" + repeat('a', MessageSplitter.MAX_LENGTH - 2);
+
+        assertEquals(Collections.singletonList(null), MessageSplitter.split(null));
+        assertEquals(Collections.singletonList(""), MessageSplitter.split(""));
+        assertEquals(Collections.singletonList(full), MessageSplitter.split(full));
+    }
+
+    @Test
+    public void splitsTextWithoutSpacesAtTheMaxLength() {
+        assertEquals(
+            Arrays.asList(repeat('a', MessageSplitter.MAX_LENGTH), "a"),
+            MessageSplitter.split(repeat('a', MessageSplitter.MAX_LENGTH + 1))
+        );
+        assertEquals(
+            Arrays.asList("aaaaaaaaaa", "aaaaaaaaaa", "aaaaa"),
+            MessageSplitter.split(repeat('a', 25), 10)
+        );
+    }
+
+    @Test
+    public void prefersLineBreaksOverSpaces() {
+        assertEquals(Arrays.asList("aaaa bbbb", "cccc dddd eeee"), MessageSplitter.split("aaaa bbbb\ncccc dddd eeee", 15));
+        assertEquals(Arrays.asList("aaaa bbbb", "cccc"), MessageSplitter.split("aaaa bbbb cccc", 10));
+    }
+
+    @Test
+    public void reopensFormattingInTheNextChunk() {
+        assertEquals(Arrays.asList("**aaaa**", "**bbbb**", "**cccc**"), MessageSplitter.split("**aaaa bbbb cccc**", 12));
+        assertEquals(Arrays.asList("*aa* ~~bb~~", "~~cc dd ee~~"), MessageSplitter.split("*aa* ~~bb cc dd ee~~", 12));
+        assertEquals(Arrays.asList("`code a b`", "`c d`"), MessageSplitter.split("`code a b c d`", 10));
+    }
+
+    @Test
+    public void reopensNestedFormattingInOrder() {
+        assertEquals(
+            Arrays.asList("**__aaaa__**", "**__bbbb__**", "**__cccc__**"),
+            MessageSplitter.split("**__aaaa bbbb cccc__**", 16)
+        );
+    }
+
+    @Test
+    public void keepsTheCodeBlockLanguage() {
+        assertEquals(
+            Arrays.asList("```java\nint a;\n```", "```java\nint b;\n```"),
+            MessageSplitter.split("```java\nint a;\nint b;\n```", 20)
+        );
+    }
+
+    @Test
+    public void dropsALongCodeBlockLanguageInsteadOfTheCodeBlock() {
+        String text = "a ```" + repeat('x', 1495) + "\n\nb" + repeat('y', 1424);
+
+        assertEquals(
+            Arrays.asList("a ```" + repeat('x', 1495) + "\n\n```", "```\nb" + repeat('y', 1424)),
+            MessageSplitter.split(text)
+        );
+    }
+
+    @Test
+    public void doesNotSplitSurrogatePairs() {
+        String emoji = "\ud83d\ude00";
+
+        assertEquals(
+            Arrays.asList(emoji + emoji, emoji + emoji, emoji + emoji),
+            MessageSplitter.split(emoji + emoji + emoji + emoji + emoji + emoji, 5)
+        );
+        assertEquals(Arrays.asList("ab", emoji, emoji), MessageSplitter.split("ab" + emoji + emoji, 3));
+    }
+}
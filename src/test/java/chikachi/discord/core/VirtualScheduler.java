@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2018 Chikachi and other contributors
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see http://www.gnu.org/licenses.
+ */
+
+package chikachi.discord.core;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A scheduler running on virtual time, for repeatable Batcher runs in tests and the stress report.
+ *
+ * Nothing runs until the time is advanced, then tasks run on the calling thread in time order, tasks due at the same
+ * time in the order they were scheduled. Only meant for one thread. Like ScheduledThreadPoolExecutor, a task that
+ * throws isn't run again, and the exception is kept in its future.
+ */
+class VirtualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+    private final PriorityQueue<Task<?>> tasks = new PriorityQueue<>();
+    private long now = 0;
+    private long sequence = 0;
+
+    /**
+     * Current virtual time in nanoseconds, the Batcher's clock
+     */
+    long now() {
+        return this.now;
+    }
+
+    /**
+     * Run every task due up to the time, including tasks they schedule.
+     */
+    void advanceTo(long time) {
+        Task<?> task;
+        while ((task = this.tasks.peek()) != null && task.time <= time) {
+            this.tasks.poll();
+            this.now = Math.max(this.now, task.time);
+            if (!task.isCancelled()) {
+                task.runTask();
+            }
+        }
+        this.now = Math.max(this.now, time);
+    }
+
+    /**
+     * Run tasks until none are left, so never with a periodic task scheduled.
+     */
+    void runAll() {
+        Task<?> task;
+        while ((task = this.tasks.peek()) != null) {
+            advanceTo(task.time);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return add(new Task<>(command, null, time(delay, unit), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return add(new Task<>(callable, time(delay, unit)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return add(new Task<>(command, null, time(initialDelay, unit), unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return add(new Task<>(command, null, time(initialDelay, unit), -unit.toNanos(delay)));
+    }
+
+    private long time(long delay, TimeUnit unit) {
+        return this.now + Math.max(unit.toNanos(delay), 0);
+    }
+
+    private <V> Task<V> add(Task<V> task) {
+        task.sequence = this.sequence++;
+        this.tasks.add(task);
+        return task;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return true;
+    }
+
+    private class Task<V> extends FutureTask<V> implements ScheduledFuture<V> {
+        private long time;
+        private long sequence;
+        /**
+         * Positive for a fixed rate, negative for a fixed delay, 0 to run once
+         */
+        private final long period;
+
+        Task(Callable<V> callable, long time) {
+            super(callable);
+            this.time = time;
+            this.period = 0;
+        }
+
+        Task(Runnable runnable, V result, long time, long period) {
+            super(runnable, result);
+            this.time = time;
+            this.period = period;
+        }
+
+        void runTask() {
+            if (this.period == 0) {
+                run();
+            } else if (runAndReset()) {
+                this.time = this.period > 0 ? this.time + this.period : VirtualScheduler.this.now - this.period;
+                add(this);
+            }
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(this.time - VirtualScheduler.this.now, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Task<?> task = (Task<?>) other;
+            if (this.time != task.time) {
+                return Long.compare(this.time, task.time);
+            }
+            return Long.compare(this.sequence, task.sequence);
+        }
+    }
+}